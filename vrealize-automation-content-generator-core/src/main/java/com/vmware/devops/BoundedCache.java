@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * Size and age bounded LRU cache which keeps hit, miss, load and eviction statistics.
+ * <p>
+ * The bounds default to the "cache.maxSize" and "cache.expireAfterSeconds" system properties.
+ * <p>
+ * The process wide caches are {@link #register(BoundedCache) registered}, so their statistics
+ * are reported and they are cleared between jobs.
+ */
+public class BoundedCache<K, V> {
+    public static final int DEFAULT_MAX_SIZE = Integer.getInteger("cache.maxSize", 10000);
+    public static final long DEFAULT_EXPIRE_AFTER_SECONDS = Long
+            .getLong("cache.expireAfterSeconds", 3600);
+
+    private static final List<BoundedCache<?, ?>> CACHES = new CopyOnWriteArrayList<>();
+
+    @Getter
+    private final String name;
+
+    private final int maxSize;
+    private final long expireAfterNanos;
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long loads;
+    private long totalLoadTimeNanos;
+    private long evictions;
+
+    public BoundedCache(String name) {
+        this(name, DEFAULT_MAX_SIZE, DEFAULT_EXPIRE_AFTER_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public BoundedCache(String name, int maxSize, long expireAfter, TimeUnit unit) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.expireAfterNanos = unit.toNanos(expireAfter);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Add a process wide cache to {@link #getCaches()}. Caches are never unregistered.
+     *
+     * @return the cache
+     */
+    public static <K, V> BoundedCache<K, V> register(BoundedCache<K, V> cache) {
+        CACHES.add(cache);
+        return cache;
+    }
+
+    public static List<BoundedCache<?, ?>> getCaches() {
+        return Collections.unmodifiableList(CACHES);
+    }
+
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.createdAt > expireAfterNanos) {
+            entries.remove(key);
+            evictions++;
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            RunReport.recordCacheLookup(false);
+            return null;
+        }
+
+        hits++;
+        RunReport.recordCacheLookup(true);
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new CacheEntry<>(value, System.nanoTime()));
+    }
+
+    /**
+     * Store a value fetched from the server after a miss and account for the time it took.
+     */
+    public synchronized void putLoaded(K key, V value, long loadTimeNanos) {
+        loads++;
+        totalLoadTimeNanos += loadTimeNanos;
+        put(key, value);
+    }
+
+    /**
+     * Copy of the entries which haven't expired yet
+     */
+    public synchronized Map<K, V> asMap() {
+        Map<K, V> result = new LinkedHashMap<>();
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            if (now - entry.createdAt <= expireAfterNanos) {
+                result.put(key, entry.value);
+            }
+        });
+
+        return result;
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(name, entries.size(), hits, misses, loads,
+                TimeUnit.NANOSECONDS.toMillis(totalLoadTimeNanos), evictions);
+    }
+
+    @AllArgsConstructor
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long createdAt;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Statistics {
+        private String name;
+        private int size;
+        private long hits;
+        private long misses;
+        private long loads;
+        private long totalLoadTimeMillis;
+        private long evictions;
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s: size=%d hits=%d misses=%d hitRate=%.2f loads=%d loadTime=%dms evictions=%d",
+                    name, size, hits, misses, getHitRate(), loads, totalLoadTimeMillis,
+                    evictions);
+        }
+    }
+}
@@ -9,6 +9,10 @@ import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import lombok.Getter;
 
 import com.vmware.devops.config.CloudAssemblyConfiguration;
@@ -17,11 +21,25 @@ import com.vmware.devops.config.EndpointConfiguration;
 import com.vmware.devops.config.ExtensibilityConfiguration;
 import com.vmware.devops.config.GlobalConfiguration;
 
+/**
+ * Configuration of the current run, shared by the specs and the entities they build. Models read
+ * it for their defaults every time they are built, so getting it takes no lock once it exists.
+ * <p>
+ * Entities are generated while the specs of later layers still change the defaults, so they are
+ * generated with a {@link #snapshot()} of the context bound to the generating thread.
+ */
 public class GenerationContext {
-    private static GenerationContext generationContext;
+    private static final ObjectMapper CONFIGURATION_MAPPER = JsonMapper.builder()
+            .visibility(PropertyAccessor.ALL, Visibility.NONE)
+            .visibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .build();
+
+    private static final ThreadLocal<GenerationContext> BOUND = new ThreadLocal<>();
+
+    private static volatile GenerationContext generationContext;
 
     @Getter
-    private EndpointConfiguration endpointConfiguration = new EndpointConfiguration();
+    private final EndpointConfiguration endpointConfiguration;
 
     @Getter
     private GlobalConfiguration globalConfiguration = new GlobalConfiguration();
@@ -36,22 +54,81 @@ public class GenerationContext {
     private ExtensibilityConfiguration extensibilityConfiguration = new ExtensibilityConfiguration();
 
     @Getter
-    private ForkJoinPool threadPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
-            new CustomForkJoinWorkerThreadFactory(), null, false);
+    private final ForkJoinPool threadPool;
 
     private GenerationContext() {
+        this(new EndpointConfiguration(), new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(),
+                new CustomForkJoinWorkerThreadFactory(), null, false));
+    }
+
+    private GenerationContext(EndpointConfiguration endpointConfiguration,
+            ForkJoinPool threadPool) {
+        this.endpointConfiguration = endpointConfiguration;
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * @return the context bound to the current thread, or the one of the run
+     */
+    public static GenerationContext getInstance() {
+        GenerationContext result = BOUND.get();
+        if (result != null) {
+            return result;
+        }
+
+        result = generationContext;
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (GenerationContext.class) {
+            if (generationContext == null) {
+                generationContext = new GenerationContext();
+            }
+
+            return generationContext;
+        }
     }
 
-    public static synchronized GenerationContext getInstance() {
-        if (generationContext == null) {
-            generationContext = new GenerationContext();
+    /**
+     * Make {@link #getInstance()} return the given context in the current thread
+     *
+     * @param context
+     *         null for the context of the run
+     * @return the context bound before, to be bound again when done
+     */
+    public static GenerationContext bind(GenerationContext context) {
+        GenerationContext previous = BOUND.get();
+        if (context != null) {
+            BOUND.set(context);
+        } else {
+            BOUND.remove();
         }
 
-        return generationContext;
+        return previous;
+    }
+
+    /**
+     * @return a copy of the configurations, which later changes of this context don't affect.
+     * The endpoint and the thread pool are shared.
+     */
+    public GenerationContext snapshot() {
+        GenerationContext result = new GenerationContext(endpointConfiguration, threadPool);
+        result.globalConfiguration = copy(globalConfiguration);
+        result.codestreamConfiguration = copy(codestreamConfiguration);
+        result.cloudAssemblyConfiguration = copy(cloudAssemblyConfiguration);
+        result.extensibilityConfiguration = copy(extensibilityConfiguration);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked") // converted to the class of the configuration
+    private static <T> T copy(T configuration) {
+        return (T) CONFIGURATION_MAPPER.convertValue(configuration, configuration.getClass());
     }
 
-    // Ensure empty context
-    public static void reset() {
+    // Ensure empty context, the next run gets a new one
+    public static synchronized void reset() {
         generationContext = null;
     }
 
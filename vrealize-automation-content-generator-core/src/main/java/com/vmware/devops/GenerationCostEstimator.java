@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+import com.vmware.devops.model.cloudassembly.design.CloudTemplate;
+import com.vmware.devops.model.cloudassembly.extensibility.Action;
+import com.vmware.devops.model.cloudassembly.infrastructure.CloudAccount;
+import com.vmware.devops.model.cloudassembly.infrastructure.Project;
+import com.vmware.devops.model.codestream.Pipeline;
+
+/**
+ * Estimates how long generating an entity takes, so the longest dependency chains can be started
+ * first.
+ * <p>
+ * Durations measured in previous runs are used when a history file is given, otherwise rough
+ * defaults per entity type.
+ */
+@Slf4j
+public class GenerationCostEstimator {
+    public static final long DEFAULT_COST_MILLIS = 500;
+
+    private static final Map<Class<?>, Long> TYPE_DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // Validates the endpoint and enumerates its regions
+        TYPE_DEFAULTS.put(CloudAccount.class, 30000L);
+        TYPE_DEFAULTS.put(Project.class, 2000L);
+        TYPE_DEFAULTS.put(Action.class, 2000L);
+        TYPE_DEFAULTS.put(CloudTemplate.class, 1500L);
+        TYPE_DEFAULTS.put(Pipeline.class, 1500L);
+    }
+
+    private final File historyFile;
+    private final History history;
+
+    private GenerationCostEstimator(File historyFile, History history) {
+        this.historyFile = historyFile;
+        this.history = history;
+    }
+
+    /**
+     * @param historyFile
+     *         durations of previous runs, may be null or not exist yet
+     */
+    public static GenerationCostEstimator load(File historyFile) {
+        History history = new History();
+        if (historyFile != null && historyFile.isFile()) {
+            try {
+                history = SerializationUtils.fromJson(
+                        FileUtils.readFileToString(historyFile, StandardCharsets.UTF_8), history);
+            } catch (IOException e) {
+                log.warn("Failed to read generation history " + historyFile, e);
+            }
+        }
+
+        return new GenerationCostEstimator(historyFile, history);
+    }
+
+    public long estimate(GenerationEntity entity) {
+        synchronized (history) {
+            Long duration = history.durations.get(getEntityKey(entity));
+            if (duration == null) {
+                duration = history.durations.get(entity.getClass().getSimpleName());
+            }
+
+            if (duration != null) {
+                return duration;
+            }
+        }
+
+        return TYPE_DEFAULTS.entrySet().stream()
+                .filter(e -> e.getKey().isInstance(entity))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(DEFAULT_COST_MILLIS);
+    }
+
+    public void record(GenerationEntity entity, long durationMillis) {
+        synchronized (history) {
+            // Moving average, so the estimates follow changes of the server
+            String entityKey = getEntityKey(entity);
+            String typeKey = entity.getClass().getSimpleName();
+            history.durations.merge(entityKey, durationMillis, (a, b) -> (a + b) / 2);
+            if (!typeKey.equals(entityKey)) {
+                history.durations.merge(typeKey, durationMillis, (a, b) -> (a + b) / 2);
+            }
+        }
+    }
+
+    public void save() {
+        if (historyFile == null) {
+            return;
+        }
+
+        try {
+            synchronized (history) {
+                FileUtils.writeStringToFile(historyFile, SerializationUtils.toPrettyJson(history),
+                        StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write generation history " + historyFile, e);
+        }
+    }
+
+    static String getEntityKey(GenerationEntity entity) {
+        String key = entity.getClass().getSimpleName();
+        List<EntityReference> provided = entity.providedReferences();
+        if (provided.isEmpty()) {
+            return key;
+        }
+
+        return key + ":" + provided.get(0).getName();
+    }
+
+    @Data
+    public static class History {
+        /**
+         * Average duration in milliseconds by entity type and by entity type and name
+         */
+        private Map<String, Long> durations = new TreeMap<>();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * Dependency graph of the entities produced by the specs.
+ * <p>
+ * An entity depends on the entities providing the references it requires, as long as they come
+ * from a spec with the same or a lower NNN- prefix. References to entities which are not part of
+ * the run are expected to exist already and are ignored.
+ * <p>
+ * Layers are added in prefix order, so the dependencies of an added entity are always known by the
+ * time it is added and the graph can be scheduled while later layers are still being evaluated.
+ * <p>
+ * Every node has a priority, the estimated cost of the longest chain of entities starting with it.
+ * Starting the nodes with the highest priority first keeps the critical path short.
+ */
+@Slf4j
+public class GenerationGraph {
+    @Getter
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Additionally wait for all entities with a lower prefix, like before dependencies were
+     * tracked
+     */
+    private final boolean strictOrdering;
+
+    private final ToLongFunction<GenerationEntity> costEstimate;
+
+    private final Map<EntityReference, List<Node>> providers = new HashMap<>();
+    private List<Node> previousLayer = List.of();
+
+    public GenerationGraph(boolean strictOrdering) {
+        this(strictOrdering, e -> 1);
+    }
+
+    public GenerationGraph(boolean strictOrdering,
+            ToLongFunction<GenerationEntity> costEstimate) {
+        this.strictOrdering = strictOrdering;
+        this.costEstimate = costEstimate;
+    }
+
+    /**
+     * @param layers
+     *         the entities of every NNN- prefix, in prefix order
+     */
+    public static GenerationGraph build(List<List<GenerationEntity>> layers,
+            boolean strictOrdering) {
+        GenerationGraph graph = new GenerationGraph(strictOrdering);
+        for (int i = 0; i < layers.size(); i++) {
+            graph.addLayer(i, layers.get(i));
+        }
+
+        return graph;
+    }
+
+    /**
+     * Add the entities of the next layer.
+     *
+     * @return the added nodes
+     */
+    public List<Node> addLayer(int layer, List<GenerationEntity> entities) {
+        List<Node> added = new ArrayList<>();
+        if (entities.isEmpty()) {
+            return added;
+        }
+
+        List<Node> current = new ArrayList<>();
+        for (GenerationEntity entity : entities) {
+            Node node = add(entity, layer);
+            for (EntityReference reference : entity.providedReferences()) {
+                if (reference.getName() != null) {
+                    providers.computeIfAbsent(reference, r -> new ArrayList<>()).add(node);
+                }
+            }
+            current.add(node);
+        }
+
+        for (Node node : current) {
+            for (EntityReference reference : node.entity.requiredReferences()) {
+                for (Node provider : providers.getOrDefault(reference, List.of())) {
+                    if (provider != node) {
+                        node.dependOn(provider);
+                    }
+                }
+            }
+        }
+
+        breakCycles(current);
+
+        if (strictOrdering && !previousLayer.isEmpty()) {
+            Node barrier = add(null, layer);
+            previousLayer.forEach(barrier::dependOn);
+            current.forEach(n -> n.dependOn(barrier));
+            added.add(barrier);
+        }
+
+        added.addAll(current);
+        added.forEach(this::updatePriority);
+        previousLayer = current;
+        return added;
+    }
+
+    private Node add(GenerationEntity entity, int layer) {
+        Node node = new Node(entity, layer, nodes.size(),
+                entity == null ? 0 : costEstimate.applyAsLong(entity));
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Recalculate the priority of the node and of everything it depends on after it got new
+     * dependents
+     */
+    private void updatePriority(Node node) {
+        long priority = node.cost + node.dependents.stream().mapToLong(Node::getPriority).max()
+                .orElse(0);
+        if (priority > node.priority) {
+            node.priority = priority;
+            node.dependencies.forEach(this::updatePriority);
+        }
+    }
+
+    /**
+     * Dependencies only point to the same or a lower layer, so any new cycle is between entities
+     * of the added layer. Those were generated in no particular order before, so just drop the
+     * edge closing the cycle.
+     */
+    private void breakCycles(List<Node> layer) {
+        Set<Node> visited = new HashSet<>();
+        Set<Node> inProgress = new HashSet<>();
+        for (Node node : layer) {
+            breakCycles(node, visited, inProgress);
+        }
+    }
+
+    private void breakCycles(Node node, Set<Node> visited, Set<Node> inProgress) {
+        if (!visited.add(node)) {
+            return;
+        }
+
+        inProgress.add(node);
+        for (Node dependency : new ArrayList<>(node.dependencies)) {
+            if (dependency.layer != node.layer) {
+                continue;
+            }
+
+            if (inProgress.contains(dependency)) {
+                log.warn("Circular dependency between {} and {}, ignoring it",
+                        node.entity.describe(), dependency.entity.describe());
+                node.dependencies.remove(dependency);
+                dependency.dependents.remove(node);
+            } else {
+                breakCycles(dependency, visited, inProgress);
+            }
+        }
+        inProgress.remove(node);
+    }
+
+    @Getter
+    public static class Node {
+        /**
+         * The entity to generate or null for the barriers used for strict ordering
+         */
+        private final GenerationEntity entity;
+        private final int layer;
+
+        /**
+         * Position in the graph, used to keep the spec order between nodes of the same priority
+         */
+        private final int index;
+        private final long cost;
+        private long priority;
+        private final Set<Node> dependencies = new LinkedHashSet<>();
+        private final Set<Node> dependents = new LinkedHashSet<>();
+
+        private Node(GenerationEntity entity, int layer, int index, long cost) {
+            this.entity = entity;
+            this.layer = layer;
+            this.index = index;
+            this.cost = cost;
+        }
+
+        private void dependOn(Node node) {
+            dependencies.add(node);
+            node.dependents.add(this);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * Journal of the entities generated by a run, appended to as soon as each one is done. It is
+ * deleted once the run completes, so it only exists after a run which was interrupted.
+ * <p>
+ * Resuming skips the entities journaled with the same fingerprint, see {@link
+ * GenerationManifest#fingerprint(GenerationEntity)}.
+ */
+@Slf4j
+public class GenerationJournal implements AutoCloseable {
+    private final File journalFile;
+    private final String instance;
+    private final Set<Entry> completed = new HashSet<>();
+    private BufferedWriter writer;
+
+    private GenerationJournal(File journalFile, String instance) {
+        this.journalFile = journalFile;
+        this.instance = instance;
+    }
+
+    /**
+     * @param resume
+     *         keep the entries of the interrupted run, otherwise start a new journal
+     */
+    public static GenerationJournal open(File journalFile, String instance, boolean resume)
+            throws IOException {
+        GenerationJournal journal = new GenerationJournal(journalFile, instance);
+        boolean incompleteLine = false;
+        if (resume && journalFile.isFile()) {
+            String content = Files.readString(journalFile.toPath(), StandardCharsets.UTF_8);
+            incompleteLine = !content.isEmpty() && !content.endsWith("\n");
+            for (String line : content.split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    journal.completed.add(SerializationUtils.fromJson(line, new Entry()));
+                } catch (JsonProcessingException e) {
+                    // The last line may be incomplete if the run was killed while writing it
+                    log.warn("Ignoring invalid journal entry " + line);
+                }
+            }
+            log.info(String.format("Resuming after %s entities generated by the interrupted run",
+                    journal.completed.size()));
+        }
+
+        journalFile.getAbsoluteFile().getParentFile().mkdirs();
+        journal.writer = Files.newBufferedWriter(journalFile.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, resume ? StandardOpenOption.APPEND
+                        : StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (incompleteLine) {
+            journal.writer.newLine();
+        }
+        return journal;
+    }
+
+    public boolean isCompleted(GenerationEntity entity, String fingerprint) {
+        return fingerprint != null && completed.contains(entry(entity, fingerprint));
+    }
+
+    public synchronized void record(GenerationEntity entity, String fingerprint) {
+        if (fingerprint == null) {
+            return;
+        }
+
+        try {
+            writer.write(SerializationUtils.toJson(entry(entity, fingerprint)));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Failed to write generation journal " + journalFile, e);
+        }
+    }
+
+    /**
+     * Close the journal but keep it, so a run stopped early can be resumed
+     */
+    public synchronized void closeIncomplete() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Close the journal and delete it, the run is complete
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+        Files.deleteIfExists(journalFile.toPath());
+    }
+
+    private Entry entry(GenerationEntity entity, String fingerprint) {
+        List<EntityReference> provided = entity.providedReferences();
+        return new Entry(instance, entity.getClass().getSimpleName(),
+                provided.isEmpty() ? null : provided.get(0).getName(), fingerprint);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String instance;
+        private String type;
+        private String name;
+        private String hash;
+    }
+}
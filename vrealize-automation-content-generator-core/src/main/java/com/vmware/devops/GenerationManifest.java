@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * Fingerprints of the entities successfully generated against an instance, used to skip the ones
+ * which haven't changed since. The fingerprints are kept per instance and specs, so runs of
+ * different specs against the same instance don't drop each other's.
+ * <p>
+ * The fingerprint covers the entity as defined by the spec, the files it reads and the context
+ * configuration it falls back to. Only the fields are serialized, getters of the models may call
+ * the server. Changes done on the server directly are not detected, use a full run for those.
+ */
+@Slf4j
+public class GenerationManifest {
+    private static final ObjectMapper FINGERPRINT_MAPPER = JsonMapper.builder()
+            .visibility(PropertyAccessor.ALL, Visibility.NONE)
+            .visibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .serializationInclusion(Include.NON_NULL)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+            .build();
+
+    private final File manifestFile;
+    private final String instance;
+
+    /**
+     * Key of the instance and specs in the content
+     */
+    private final String key;
+    private final Content content;
+
+    /**
+     * Entities generated or found unchanged in this run. Anything else is dropped on save, unless
+     * the run covered only part of the specs.
+     */
+    private final Map<String, String> current = new HashMap<>();
+
+    /**
+     * Keys of the entities this run tried to generate, whose earlier fingerprints are outdated
+     */
+    private final Set<String> attempted = new HashSet<>();
+
+    private GenerationManifest(File manifestFile, String instance, String specs,
+            Content content) {
+        this.manifestFile = manifestFile;
+        this.instance = instance;
+        this.key = specs != null ? instance + " " + specs : instance;
+        this.content = content;
+    }
+
+    public static GenerationManifest load(File manifestFile, String instance) {
+        return load(manifestFile, instance, null);
+    }
+
+    /**
+     * @param manifestFile
+     *         fingerprints of previous runs, may be null or not exist yet
+     * @param specs
+     *         the specs the entities are generated from, e.g. their path
+     */
+    public static GenerationManifest load(File manifestFile, String instance, String specs) {
+        Content content = new Content();
+        if (manifestFile != null && manifestFile.isFile()) {
+            try {
+                content = SerializationUtils.fromJson(
+                        FileUtils.readFileToString(manifestFile, StandardCharsets.UTF_8), content);
+            } catch (IOException e) {
+                log.warn("Failed to read generation manifest " + manifestFile, e);
+            }
+        }
+
+        return new GenerationManifest(manifestFile, instance, specs, content);
+    }
+
+    /**
+     * Has to be called before {@link GenerationEntity#generate()}, which modifies the entity.
+     *
+     * @return the fingerprint or null if the entity can't be fingerprinted
+     */
+    public String fingerprint(GenerationEntity entity) {
+        try {
+            StringBuilder builder = new StringBuilder()
+                    .append(instance).append('\n')
+                    .append(entity.getClass().getName()).append('\n')
+                    .append(FINGERPRINT_MAPPER.writeValueAsString(entity)).append('\n')
+                    .append(getConfigurationSnapshot());
+            for (String inputFile : entity.inputFiles()) {
+                builder.append(inputFile).append(' ')
+                        .append(Utils.sha256(Utils.readBytes(inputFile))).append('\n');
+            }
+
+            return Utils.sha256(builder.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.debug("Failed to fingerprint " + GenerationCostEstimator.getEntityKey(entity), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the context configuration entities fall back to, serialized
+     */
+    static String getConfigurationSnapshot() throws JsonProcessingException {
+        GenerationContext context = GenerationContext.getInstance();
+        return FINGERPRINT_MAPPER.writeValueAsString(context.getGlobalConfiguration()) + '\n'
+                + FINGERPRINT_MAPPER.writeValueAsString(context.getCodestreamConfiguration())
+                + '\n'
+                + FINGERPRINT_MAPPER.writeValueAsString(context.getCloudAssemblyConfiguration())
+                + '\n'
+                + FINGERPRINT_MAPPER.writeValueAsString(context.getExtensibilityConfiguration())
+                + '\n';
+    }
+
+    /**
+     * @return true if an entity with this fingerprint was already generated
+     */
+    public synchronized boolean isUnchanged(String fingerprint) {
+        if (fingerprint == null) {
+            return false;
+        }
+
+        String entityKey = content.instances.getOrDefault(key, Map.of()).get(fingerprint);
+        if (entityKey == null) {
+            return false;
+        }
+
+        current.put(fingerprint, entityKey);
+        return true;
+    }
+
+    public synchronized void record(String fingerprint, GenerationEntity entity) {
+        String key = GenerationCostEstimator.getEntityKey(entity);
+        attempted.add(key);
+        if (fingerprint != null) {
+            current.put(fingerprint, key);
+        }
+    }
+
+    /**
+     * The entity may be partially generated, so it is generated again by the next run
+     */
+    public synchronized void recordFailure(GenerationEntity entity) {
+        attempted.add(GenerationCostEstimator.getEntityKey(entity));
+    }
+
+    /**
+     * @param complete
+     *         whether the run went through all the specs, so the entities it didn't see are gone.
+     *         Otherwise, e.g. for watch mode, filtered or cancelled runs, the fingerprints of the
+     *         entities it didn't generate are kept.
+     */
+    public synchronized void save(boolean complete) {
+        if (manifestFile == null) {
+            return;
+        }
+
+        Map<String, String> fingerprints = new TreeMap<>(current);
+        if (!complete) {
+            content.instances.getOrDefault(key, Map.of()).forEach((fingerprint, entityKey) -> {
+                if (!attempted.contains(entityKey)) {
+                    fingerprints.putIfAbsent(fingerprint, entityKey);
+                }
+            });
+        }
+        content.instances.put(key, fingerprints);
+        try {
+            FileUtils.writeStringToFile(manifestFile, SerializationUtils.toPrettyJson(content),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to write generation manifest " + manifestFile, e);
+        }
+    }
+
+    @Data
+    public static class Content {
+        /**
+         * Entity key by fingerprint, by instance and specs
+         */
+        private Map<String, Map<String, String>> instances = new TreeMap<>();
+    }
+}
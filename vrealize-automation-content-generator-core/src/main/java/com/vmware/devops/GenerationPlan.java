@@ -0,0 +1,356 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.commons.io.FileUtils;
+
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.cloudassembly.design.stubs.Blueprint;
+import com.vmware.devops.client.cloudassembly.extensibility.stubs.Action;
+import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ImageName;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.InstanceName;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Project;
+import com.vmware.devops.client.codestream.stubs.Endpoint;
+import com.vmware.devops.client.codestream.stubs.GerritListener;
+import com.vmware.devops.client.codestream.stubs.GerritTrigger;
+import com.vmware.devops.client.codestream.stubs.Pipeline;
+import com.vmware.devops.client.codestream.stubs.Variable;
+import com.vmware.devops.client.servicebroker.stubs.Policy;
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * Writes the generation of the specs would do, made without network access and applied later.
+ * <p>
+ * While an entity is planned, the createOrUpdate* client calls record their stub instead of
+ * sending it and ids which are not in the inventory snapshot become placeholders, see {@link
+ * IdCache}. Any other request fails, so entities which need to read from the server, like cloud
+ * accounts and projects, can't be planned.
+ * <p>
+ * Every entry keeps the references of its entity, so applying the plan is scheduled the same way
+ * as generating the specs.
+ * <p>
+ * Secrets, like the values of secret variables and the passwords of endpoints and cloud accounts,
+ * become placeholders too. They are kept in a ".secrets" file next to the plan, which only its
+ * owner can read, and are put back when the plan is applied.
+ */
+@Data
+public class GenerationPlan {
+    public static final String SECRETS_SUFFIX = ".secrets";
+
+    private static final ThreadLocal<Recording> RECORDING = new ThreadLocal<>();
+    private static final Pattern SECRET_PLACEHOLDER_PATTERN = Pattern
+            .compile("\\{\\{secret:(.*?)}}");
+    private static final Pattern SECRET_PROPERTY_PATTERN = Pattern.compile(
+            "(?i)privateKey|.*(password|passphrase|secret|token).*");
+
+    private String instance;
+    private List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Secret by placeholder key, not written to the plan itself
+     */
+    @JsonIgnore
+    private Map<String, String> secrets = new ConcurrentHashMap<>();
+
+    public static GenerationPlan load(File planFile) throws IOException {
+        GenerationPlan plan = SerializationUtils.fromJson(
+                FileUtils.readFileToString(planFile, StandardCharsets.UTF_8),
+                new GenerationPlan());
+        File secretsFile = getSecretsFile(planFile);
+        if (secretsFile.isFile()) {
+            Map<?, ?> secrets = SerializationUtils.fromJson(
+                    FileUtils.readFileToString(secretsFile, StandardCharsets.UTF_8),
+                    new TreeMap<>());
+            secrets.forEach((k, v) -> plan.secrets.put(k.toString(), v.toString()));
+        }
+        plan.entries.forEach(e -> e.secrets = plan.secrets);
+        return plan;
+    }
+
+    public void save(File planFile) throws IOException {
+        FileUtils.writeStringToFile(planFile, SerializationUtils.toPrettyJson(this),
+                StandardCharsets.UTF_8);
+        File secretsFile = getSecretsFile(planFile);
+        if (secrets.isEmpty()) {
+            FileUtils.deleteQuietly(secretsFile);
+        } else {
+            Utils.writeOwnerOnlyFile(secretsFile, SerializationUtils
+                    .toPrettyJson(new TreeMap<>(secrets)).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static File getSecretsFile(File planFile) {
+        return new File(planFile.getPath() + SECRETS_SUFFIX);
+    }
+
+    /**
+     * Generate the entity, recording its writes as a new entry of the plan
+     */
+    public void plan(int layer, GenerationEntity entity) throws Exception {
+        // Generating modifies the entity, so take the references first
+        Entry entry = new Entry(layer, GenerationCostEstimator.getEntityKey(entity),
+                entity.providedReferences(), entity.requiredReferences(), new ArrayList<>(),
+                secrets);
+        RECORDING.set(new Recording(entry));
+        try {
+            entity.generate();
+        } finally {
+            RECORDING.remove();
+        }
+
+        synchronized (this) {
+            entries.add(entry);
+        }
+    }
+
+    public static boolean isRecording() {
+        return RECORDING.get() != null;
+    }
+
+    /**
+     * @return the stub, as if it was written
+     */
+    public static <T> T record(Kind kind, T stub) {
+        Recording recording = RECORDING.get();
+        ObjectNode payload = SerializationUtils.getJsonMapper().valueToTree(stub);
+        kind.redaction.redact(payload, recording);
+        recording.entry.operations.add(new Operation(kind, payload));
+        return stub;
+    }
+
+    private static class Recording {
+        private final Entry entry;
+
+        private Recording(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Replace the field of the object by a placeholder, keeping its value with the secrets
+         */
+        private void redact(ObjectNode object, String path, String field) {
+            JsonNode value = object.get(field);
+            if (value == null || !value.isTextual()) {
+                return;
+            }
+
+            String key = String.format("%s/%s/%s", entry.entity, entry.operations.size(), path);
+            String existing = entry.secrets.putIfAbsent(key, value.textValue());
+            for (int i = 2; existing != null && !existing.equals(value.textValue()); i++) {
+                key = String.format("%s/%s/%s#%s", entry.entity, entry.operations.size(), path,
+                        i);
+                existing = entry.secrets.putIfAbsent(key, value.textValue());
+            }
+            object.put(field, String.format("{{secret:%s}}", key));
+        }
+
+        /**
+         * Redact the properties of the object field whose name looks like a secret
+         */
+        private void redactProperties(ObjectNode payload, String field) {
+            JsonNode properties = payload.get(field);
+            if (properties instanceof ObjectNode) {
+                List<String> names = new ArrayList<>();
+                properties.fieldNames().forEachRemaining(names::add);
+                for (String name : names) {
+                    if (SECRET_PROPERTY_PATTERN.matcher(name).matches()) {
+                        redact((ObjectNode) properties, field + "/" + name, name);
+                    }
+                }
+            }
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry implements GenerationEntity {
+        private int layer;
+        private String entity;
+        private List<EntityReference> provided;
+        private List<EntityReference> required;
+        private List<Operation> operations;
+
+        @JsonIgnore
+        private Map<String, String> secrets = Map.of();
+
+        @Override
+        public void generate() throws Exception {
+            Client client = GenerationContext.getInstance().getEndpointConfiguration().getClient();
+            for (Operation operation : operations) {
+                operation.kind.apply(client, resolvePlaceholders(operation.payload, secrets));
+            }
+        }
+
+        @Override
+        public List<EntityReference> providedReferences() {
+            return provided;
+        }
+
+        @Override
+        public List<EntityReference> requiredReferences() {
+            return required;
+        }
+
+        @Override
+        public String describe() {
+            return entity;
+        }
+
+        @Override
+        public String toString() {
+            return entity;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+        private Kind kind;
+        private JsonNode payload;
+    }
+
+    public enum Kind {
+        PIPELINE(Pipeline.class,
+                (c, s) -> c.getCodestream().createOrUpdatePipeline((Pipeline) s)),
+        GERRIT_TRIGGER(GerritTrigger.class,
+                (c, s) -> c.getCodestream().createOrUpdateGerritTrigger((GerritTrigger) s)),
+        GERRIT_LISTENER(GerritListener.class,
+                (c, s) -> c.getCodestream().createOrUpdateGerritListener((GerritListener) s)),
+        VARIABLE(Variable.class,
+                (c, s) -> c.getCodestream().createOrUpdateVariable((Variable) s),
+                (p, r) -> {
+                    if (!Variable.VariableType.REGULAR.getValue()
+                            .equals(p.path("type").asText(null))) {
+                        r.redact(p, "value", "value");
+                    }
+                }),
+        CODESTREAM_ENDPOINT(Endpoint.class,
+                (c, s) -> c.getCodestream().createOrUpdateEndpoint((Endpoint) s),
+                (p, r) -> r.redactProperties(p, "properties")),
+        POLICY(Policy.class,
+                (c, s) -> c.getServiceBroker().createOrUpdatePolicy((Policy) s)),
+        PROJECT(Project.class,
+                (c, s) -> c.getCloudAssembly().getInfrastructure()
+                        .createOrUpdateProject((Project) s)),
+        CLOUD_ACCOUNT(com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint.class,
+                (c, s) -> c.getCloudAssembly().getInfrastructure().createOrUpdateEndpoint(
+                        (com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint) s),
+                (p, r) -> r.redactProperties(p, "endpointProperties")),
+        IMAGE_NAME(ImageName.class,
+                (c, s) -> c.getCloudAssembly().getInfrastructure()
+                        .createOrUpdateImageName((ImageName) s)),
+        INSTANCE_NAME(InstanceName.class,
+                (c, s) -> c.getCloudAssembly().getInfrastructure()
+                        .createOrUpdateInstanceName((InstanceName) s)),
+        BLUEPRINT(Blueprint.class,
+                (c, s) -> c.getCloudAssembly().getDesign().createOrUpdateBlueprint((Blueprint) s)),
+        ACTION(Action.class,
+                (c, s) -> c.getCloudAssembly().getExtensibility()
+                        .createOrUpdateAction((Action) s)),
+        SUBSCRIPTION(Subscription.class,
+                (c, s) -> c.getCloudAssembly().getExtensibility()
+                        .createOrUpdateSubscription((Subscription) s));
+
+        private final Class<?> stubType;
+        private final Write write;
+        private final Redaction redaction;
+
+        Kind(Class<?> stubType, Write write) {
+            this(stubType, write, (p, r) -> {
+            });
+        }
+
+        Kind(Class<?> stubType, Write write, Redaction redaction) {
+            this.stubType = stubType;
+            this.write = write;
+            this.redaction = redaction;
+        }
+
+        private void apply(Client client, JsonNode payload) throws Exception {
+            write.apply(client, SerializationUtils.getJsonMapper().treeToValue(payload, stubType));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void apply(Client client, Object stub) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Redaction {
+        void redact(ObjectNode payload, Recording recording);
+    }
+
+    private static JsonNode resolvePlaceholders(JsonNode node, Map<String, String> secrets)
+            throws InterruptedException, IOException, URISyntaxException {
+        if (node.isTextual()) {
+            return TextNode.valueOf(IdCache.resolvePlaceholders(
+                    resolveSecrets(node.textValue(), secrets)));
+        }
+
+        if (node.isArray()) {
+            ArrayNode result = ((ArrayNode) node).arrayNode();
+            for (JsonNode element : node) {
+                result.add(resolvePlaceholders(element, secrets));
+            }
+            return result;
+        }
+
+        if (node.isObject()) {
+            ObjectNode result = ((ObjectNode) node).objectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                result.set(IdCache.resolvePlaceholders(field.getKey()),
+                        resolvePlaceholders(field.getValue(), secrets));
+            }
+            return result;
+        }
+
+        return node;
+    }
+
+    private static String resolveSecrets(String value, Map<String, String> secrets) {
+        Matcher matcher = SECRET_PLACEHOLDER_PATTERN.matcher(value);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String secret = secrets.get(matcher.group(1));
+            if (secret == null) {
+                throw new IllegalStateException("Missing secret " + matcher.group(1)
+                        + ", the " + SECRETS_SUFFIX + " file of the plan is needed to apply it");
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(secret));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.vmware.devops.GenerationGraph.Node;
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * Runs the entities of a {@link GenerationGraph}, starting each one as soon as all of its
+ * dependencies are done. A failed dependency still releases its dependents, the same way a failure
+ * in one layer didn't stop the following layers.
+ * <p>
+ * Layers can be added while the earlier ones are being generated. At most maxConcurrency entities
+ * are handed to the executor at once and the ready entity with the highest priority, the one
+ * heading the longest remaining chain, goes first.
+ * <p>
+ * A cancelled scheduler interrupts the running entities and doesn't start any more, including
+ * the ones of layers added later. Those are kept as skipped.
+ */
+public class GenerationScheduler {
+    private static final Comparator<Node> BY_PRIORITY = Comparator
+            .comparingLong(Node::getPriority).reversed()
+            .thenComparingInt(Node::getIndex);
+
+    private final GenerationGraph graph;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Consumer<GenerationEntity> generator;
+
+    private final Set<Node> done = new HashSet<>();
+    private final Map<Node, Integer> pending = new HashMap<>();
+    private final PriorityQueue<Node> ready = new PriorityQueue<>(BY_PRIORITY);
+    private int running;
+    private final Set<Thread> runningThreads = new HashSet<>();
+    private final List<GenerationEntity> skipped = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * @param generator
+     *         generates a single entity. It is expected to handle its own failures.
+     */
+    public GenerationScheduler(GenerationGraph graph, Executor executor, int maxConcurrency,
+            Consumer<GenerationEntity> generator) {
+        this.graph = graph;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.generator = generator;
+    }
+
+    public synchronized void addLayer(int layer, List<GenerationEntity> entities) {
+        for (Node node : graph.addLayer(layer, entities)) {
+            if (cancelled) {
+                skip(node);
+                continue;
+            }
+
+            int count = (int) node.getDependencies().stream().filter(d -> !done.contains(d))
+                    .count();
+            if (count == 0) {
+                ready.add(node);
+            } else {
+                pending.put(node, count);
+            }
+        }
+
+        // The new layer may have raised the priority of entities already waiting. Copying a
+        // queue keeps its heap order, so the entities are added again to be sorted.
+        List<Node> waiting = new ArrayList<>(ready);
+        ready.clear();
+        ready.addAll(waiting);
+        dispatch();
+    }
+
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+
+        cancelled = true;
+        ready.forEach(this::skip);
+        ready.clear();
+        pending.keySet().forEach(this::skip);
+        pending.clear();
+        runningThreads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * @return the entities not generated because the scheduler was cancelled
+     */
+    public synchronized List<GenerationEntity> getSkipped() {
+        return new ArrayList<>(skipped);
+    }
+
+    public synchronized void awaitCompletion() throws InterruptedException {
+        while (running > 0) {
+            wait();
+        }
+    }
+
+    private void dispatch() {
+        while (running < maxConcurrency && !ready.isEmpty()) {
+            submit(ready.poll());
+        }
+    }
+
+    private void submit(Node node) {
+        running++;
+        executor.execute(() -> {
+            try {
+                if (started(node) && node.getEntity() != null) {
+                    generator.accept(node.getEntity());
+                }
+            } finally {
+                completed(node);
+            }
+        });
+    }
+
+    private synchronized boolean started(Node node) {
+        if (cancelled) {
+            skip(node);
+            return false;
+        }
+
+        runningThreads.add(Thread.currentThread());
+        return true;
+    }
+
+    private void skip(Node node) {
+        if (node.getEntity() != null) {
+            skipped.add(node.getEntity());
+        }
+    }
+
+    private synchronized void completed(Node node) {
+        // Clear an interrupt of the cancellation arriving after the entity was done, so it
+        // doesn't affect the next task of the thread
+        if (runningThreads.remove(Thread.currentThread())) {
+            Thread.interrupted();
+        }
+        done.add(node);
+        running--;
+        for (Node dependent : node.getDependents()) {
+            if (!pending.containsKey(dependent)) {
+                // Skipped by the cancellation
+                continue;
+            }
+
+            int count = pending.get(dependent) - 1;
+            if (count == 0) {
+                pending.remove(dependent);
+                ready.add(dependent);
+            } else {
+                pending.put(dependent, count);
+            }
+        }
+        dispatch();
+        notifyAll();
+    }
+}
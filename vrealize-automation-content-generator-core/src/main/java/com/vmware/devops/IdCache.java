@@ -5,14 +5,47 @@
 
 package com.vmware.devops;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import lombok.Data;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 
+import com.vmware.devops.client.cloudassembly.infrastructure.InfrastructureClient;
+
+/**
+ * Resolves names to ids, fetching them from the server on a miss.
+ * <p>
+ * While planning offline, misses resolve to placeholders instead, which are replaced by the real
+ * ids when the plan is applied.
+ */
+@Slf4j
 public abstract class IdCache {
+    private static final List<IdCache> CACHES = new CopyOnWriteArrayList<>();
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern
+            .compile("\\{\\{id:([A-Za-z]+):(.*?)}}");
+
+    private static volatile boolean offline;
+
+    /**
+     * Regions by name of the cloud accounts generated since the regions and cloud zones were last
+     * listed
+     */
+    private static final Map<String, Set<String>> UNLISTED_REGIONS = new ConcurrentHashMap<>();
 
     public static final ProjectIdCache PROJECT_ID_CACHE = new ProjectIdCache();
     public static final CloudZoneLinkCache CLOUD_ZONE_LINK_CACHE = new CloudZoneLinkCache();
@@ -23,12 +56,184 @@ public abstract class IdCache {
     public static final InfrastructureCloudProxyIdCache INFRASTRUCTURE_CLOUD_PROXY_ID_CACHE = new InfrastructureCloudProxyIdCache();
 
     @Getter
-    private final Map<String, String> nameToId = new ConcurrentHashMap<>();
+    private final BoundedCache<String, String> nameToId;
 
     private IdCache() {
+        nameToId = BoundedCache.register(new BoundedCache<>(getClass().getSimpleName()));
+        CACHES.add(this);
+    }
+
+    public static void setOffline(boolean offline) {
+        IdCache.offline = offline;
+    }
+
+    public String getId(String name)
+            throws InterruptedException, IOException, URISyntaxException {
+        name = normalizeName(name);
+
+        String id = nameToId.get(name);
+        if (id == null && offline) {
+            return String.format("{{id:%s:%s}}", getClass().getSimpleName(), name);
+        }
+
+        if (id == null) {
+            long start = System.nanoTime();
+            id = fetchId(name);
+            nameToId.putLoaded(name, id, System.nanoTime() - start);
+        }
+
+        return id;
+    }
+
+    protected abstract String fetchId(String name)
+            throws InterruptedException, IOException, URISyntaxException;
+
+    /**
+     * Publish an id that is already known, e.g. returned by a create or update call, so later
+     * lookups for the same name don't need to hit the server.
+     */
+    public void put(String name, String id) {
+        if (name == null || id == null) {
+            return;
+        }
+
+        nameToId.put(normalizeName(name), id);
     }
 
-    public abstract String getId(String name) throws Exception;
+    protected String normalizeName(String name) {
+        return name;
+    }
+
+    /**
+     * The endpoint regions call doesn't return the links of the regions and the default cloud
+     * zones it creates. Rather than letting every image mapping, flavor mapping and project look
+     * them up by name, they are listed at once the first time one is looked up, for all the cloud
+     * accounts generated by then.
+     */
+    public static void addCloudAccount(String name, Collection<String> enabledRegions) {
+        UNLISTED_REGIONS.computeIfAbsent(name, n -> ConcurrentHashMap.newKeySet())
+                .addAll(enabledRegions);
+    }
+
+    /**
+     * Publish the links of the regions and cloud zones of the cloud accounts added since the last
+     * listing. Best effort, the ones not published are looked up by name.
+     *
+     * @return the id of the name in the given cache, null if not published
+     */
+    private static synchronized String listRegionsAndCloudZones(IdCache cache, String name) {
+        if (UNLISTED_REGIONS.isEmpty()) {
+            return null;
+        }
+
+        Set<String> cloudAccounts = new HashSet<>(UNLISTED_REGIONS.keySet());
+        Set<String> zoneNames = new HashSet<>();
+        for (String cloudAccount : cloudAccounts) {
+            // The default cloud zones are named like their regions
+            UNLISTED_REGIONS.remove(cloudAccount)
+                    .forEach(r -> zoneNames.add(cloudAccount + " / " + r));
+        }
+
+        try {
+            InfrastructureClient infrastructure = GenerationContext.getInstance()
+                    .getEndpointConfiguration().getClient().getCloudAssembly()
+                    .getInfrastructure();
+            infrastructure.getAllRegions().stream()
+                    .filter(r -> r.getEndpoint() != null
+                            && cloudAccounts.contains(r.getEndpoint().getName()))
+                    .forEach(r -> REGION_LINK_CACHE.put(
+                            r.getEndpoint().getName() + " / " + r.getRegionName(),
+                            r.getDocumentSelfLink()));
+            infrastructure.getAllCloudZones().stream()
+                    .filter(z -> zoneNames.contains(z.getName()))
+                    .forEach(z -> CLOUD_ZONE_LINK_CACHE.put(z.getName(), z.getDocumentSelfLink()));
+        } catch (Exception e) {
+            log.warn("Failed to list the regions and cloud zones of cloud accounts "
+                    + cloudAccounts + ", looking them up by name", e);
+            return null;
+        }
+
+        return cache.nameToId.get(name);
+    }
+
+    /**
+     * Replace the placeholders returned while offline with the ids of the named entities.
+     */
+    public static String resolvePlaceholders(String value)
+            throws InterruptedException, IOException, URISyntaxException {
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(value);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            IdCache cache = CACHES.stream()
+                    .filter(c -> c.getClass().getSimpleName().equals(matcher.group(1)))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Unknown id placeholder " + matcher.group()));
+            matcher.appendReplacement(result,
+                    Matcher.quoteReplacement(cache.getId(matcher.group(2))));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+
+    /**
+     * Add the ids known for the instance to the snapshot, so plans can be made offline later.
+     * Ids of earlier runs are kept, as a run only looks up the ones it needs.
+     */
+    public static void saveSnapshot(File snapshotFile, String instance) {
+        Snapshot snapshot = readSnapshot(snapshotFile);
+        Map<String, Map<String, String>> ids = new TreeMap<>(
+                snapshot.instances.getOrDefault(instance, Map.of()));
+        for (IdCache cache : CACHES) {
+            Map<String, String> known = new TreeMap<>(
+                    ids.getOrDefault(cache.getClass().getSimpleName(), Map.of()));
+            cache.nameToId.asMap().forEach((name, id) -> {
+                if (id != null && !PLACEHOLDER_PATTERN.matcher(id).find()) {
+                    known.put(name, id);
+                }
+            });
+            ids.put(cache.getClass().getSimpleName(), known);
+        }
+        snapshot.instances.put(instance, ids);
+
+        try {
+            FileUtils.writeStringToFile(snapshotFile, SerializationUtils.toPrettyJson(snapshot),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to write inventory snapshot " + snapshotFile, e);
+        }
+    }
+
+    public static void loadSnapshot(File snapshotFile, String instance) {
+        Map<String, Map<String, String>> ids = readSnapshot(snapshotFile).instances
+                .getOrDefault(instance, Map.of());
+        for (IdCache cache : CACHES) {
+            ids.getOrDefault(cache.getClass().getSimpleName(), Map.of()).forEach(cache::put);
+        }
+    }
+
+    private static Snapshot readSnapshot(File snapshotFile) {
+        if (snapshotFile.isFile()) {
+            try {
+                return SerializationUtils.fromJson(
+                        FileUtils.readFileToString(snapshotFile, StandardCharsets.UTF_8),
+                        new Snapshot());
+            } catch (IOException e) {
+                log.warn("Failed to read inventory snapshot " + snapshotFile, e);
+            }
+        }
+
+        return new Snapshot();
+    }
+
+    @Data
+    public static class Snapshot {
+        /**
+         * Id by name, by cache, by instance
+         */
+        private Map<String, Map<String, Map<String, String>>> instances = new TreeMap<>();
+    }
 
     public static class ProjectIdCache extends IdCache {
 
@@ -36,16 +241,11 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
+        protected String fetchId(String name)
                 throws InterruptedException, IOException, URISyntaxException {
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCloudAssembly().getInfrastructure().findProjectByName(name)
-                                .getId());
-            }
-
-            return getNameToId().get(name);
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCloudAssembly().getInfrastructure().findProjectByName(name)
+                    .getId();
         }
     }
 
@@ -55,20 +255,23 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
-                throws InterruptedException, IOException, URISyntaxException {
+        protected String normalizeName(String name) {
             String[] splitted = name.split("/");
-            name = splitted[0].trim() + " / " + splitted[1]
+            return splitted[0].trim() + " / " + splitted[1]
                     .trim();  // make sure whitespace does not matter
+        }
 
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCloudAssembly().getInfrastructure().findCloudZoneByName(name)
-                                .getDocumentSelfLink());
+        @Override
+        protected String fetchId(String name)
+                throws InterruptedException, IOException, URISyntaxException {
+            String link = listRegionsAndCloudZones(this, name);
+            if (link != null) {
+                return link;
             }
 
-            return getNameToId().get(name);
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCloudAssembly().getInfrastructure().findCloudZoneByName(name)
+                    .getDocumentSelfLink();
         }
     }
 
@@ -78,23 +281,25 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
-                throws InterruptedException, IOException, URISyntaxException {
+        protected String normalizeName(String name) {
             // The name here is "endpointName / regionId" format
             String[] splitted = name.split("/");
-            String endpointName = splitted[0].trim();
-            String regionName = splitted[1].trim();
-            name = endpointName + " / " + regionName; // make sure it's proper format
-
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCloudAssembly().getInfrastructure()
-                                .findRegionByEndpointAndRegionName(endpointName, regionName)
-                                .getDocumentSelfLink());
+            return splitted[0].trim() + " / " + splitted[1].trim(); // make sure it's proper format
+        }
+
+        @Override
+        protected String fetchId(String name)
+                throws InterruptedException, IOException, URISyntaxException {
+            String link = listRegionsAndCloudZones(this, name);
+            if (link != null) {
+                return link;
             }
 
-            return getNameToId().get(name);
+            String[] splitted = name.split(" / ");
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCloudAssembly().getInfrastructure()
+                    .findRegionByEndpointAndRegionName(splitted[0], splitted[1])
+                    .getDocumentSelfLink();
         }
     }
 
@@ -104,16 +309,11 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
+        protected String fetchId(String name)
                 throws InterruptedException, IOException, URISyntaxException {
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCloudAssembly().getExtensibility().findActionByName(name)
-                                .getId());
-            }
-
-            return getNameToId().get(name);
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCloudAssembly().getExtensibility().findActionByName(name)
+                    .getId();
         }
     }
 
@@ -123,16 +323,11 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
+        protected String fetchId(String name)
                 throws InterruptedException, IOException, URISyntaxException {
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCloudAssembly().getDesign().findBlueprintByName(name)
-                                .getId());
-            }
-
-            return getNameToId().get(name);
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCloudAssembly().getDesign().findBlueprintByName(name)
+                    .getId();
         }
     }
 
@@ -142,15 +337,10 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
+        protected String fetchId(String name)
                 throws InterruptedException, IOException, URISyntaxException {
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCodestream().findCloudProxyByName(name).getId());
-            }
-
-            return getNameToId().get(name);
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCodestream().findCloudProxyByName(name).getId();
         }
     }
 
@@ -160,16 +350,11 @@ public abstract class IdCache {
         }
 
         @Override
-        public String getId(String name)
+        protected String fetchId(String name)
                 throws InterruptedException, IOException, URISyntaxException {
-            if (getNameToId().get(name) == null) {
-                getNameToId().put(name,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCloudAssembly().getInfrastructure()
-                                .findDataCollectorByName(name).getProxyId());
-            }
-
-            return getNameToId().get(name);
+            return GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                    .getCloudAssembly().getInfrastructure()
+                    .findDataCollectorByName(name).getProxyId();
         }
     }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The files and classpath resources read by the specs, so the ones shared by many specs are read
+ * once per run.
+ * <p>
+ * Files are read again once their modification time or size changes. The content is kept by its
+ * hash, so paths with the same content share the decoded text and the parsed properties. Content
+ * no path has anymore is dropped.
+ */
+public class ResourceCache {
+    /**
+     * Files read this close to their modification time may have changed again within the
+     * resolution of the time, so they are read again
+     */
+    private static final long RACY_MILLIS = 2000;
+
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Content by hash, guarded by this
+     */
+    private final Map<String, Content> contents = new HashMap<>();
+
+    public String readText(String filePath) throws IOException {
+        return get(filePath).content.getText();
+    }
+
+    /**
+     * @return a copy of the properties, which the caller may change
+     */
+    public Properties readProperties(String filePath) throws IOException {
+        Properties result = new Properties();
+        result.putAll(get(filePath).content.getProperties());
+        return result;
+    }
+
+    /**
+     * @return a copy of the content, which the caller may change
+     */
+    public byte[] readBytes(String filePath) throws IOException {
+        return get(filePath).content.bytes.clone();
+    }
+
+    /**
+     * Forget all content, e.g. between runs
+     */
+    public synchronized void clear() {
+        resources.clear();
+        contents.clear();
+    }
+
+    /**
+     * @return the number of distinct contents kept
+     */
+    synchronized int size() {
+        return contents.size();
+    }
+
+    private Resource get(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        BasicFileAttributes attributes = null;
+        if (Files.isRegularFile(path)) {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        }
+
+        Resource resource = resources.get(filePath);
+        if (resource != null && resource.isCurrent(attributes)) {
+            return resource;
+        }
+
+        long readAt = -1;
+        long lastModified = -1;
+        long size = -1;
+        byte[] bytes;
+        if (attributes != null) {
+            readAt = System.currentTimeMillis();
+            lastModified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+            bytes = Files.readAllBytes(path);
+        } else {
+            bytes = readResource(filePath);
+        }
+
+        String hash = Utils.sha256(bytes);
+        synchronized (this) {
+            Content content = contents.computeIfAbsent(hash, h -> new Content(bytes));
+            resource = new Resource(content, lastModified, size, readAt);
+            // Drop the previous content of the path, unless another path still has it
+            Resource previous = resources.put(filePath, resource);
+            if (previous != null && previous.content != content
+                    && resources.values().stream().noneMatch(r -> r.content == previous.content)) {
+                contents.values().remove(previous.content);
+            }
+        }
+
+        return resource;
+    }
+
+    private static byte[] readResource(String filePath) throws IOException {
+        try (InputStream in = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream(filePath)) {
+            if (in == null) {
+                throw new FileNotFoundException(filePath);
+            }
+
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static class Content {
+        private final byte[] bytes;
+        private String text;
+        private Properties properties;
+
+        private Content(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private synchronized String getText() {
+            if (text == null) {
+                text = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return text;
+        }
+
+        private synchronized Properties getProperties() throws IOException {
+            if (properties == null) {
+                Properties parsed = new Properties();
+                parsed.load(new ByteArrayInputStream(bytes));
+                properties = parsed;
+            }
+            return properties;
+        }
+    }
+
+    private static class Resource {
+        private final Content content;
+
+        /**
+         * Of the file when read, -1 for classpath resources, which don't change during a run
+         */
+        private final long lastModified;
+        private final long size;
+        private final long readAt;
+
+        private Resource(Content content, long lastModified, long size, long readAt) {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.readAt = readAt;
+        }
+
+        private boolean isCurrent(BasicFileAttributes attributes) {
+            if (attributes == null) {
+                return lastModified == -1;
+            }
+
+            return attributes.lastModifiedTime().toMillis() == lastModified
+                    && attributes.size() == size
+                    && readAt - lastModified > RACY_MILLIS;
+        }
+    }
+}
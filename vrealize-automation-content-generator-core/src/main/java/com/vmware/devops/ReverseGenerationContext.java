@@ -35,6 +35,11 @@ public class ReverseGenerationContext {
         return reverseGenerationContext;
     }
 
+    // Ensure empty context
+    public static synchronized void reset() {
+        reverseGenerationContext = null;
+    }
+
     public File newOutputDirFile(String fileName) {
         return new File(new File(outputDir), fileName);
     }
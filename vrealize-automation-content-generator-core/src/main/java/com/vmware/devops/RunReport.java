@@ -0,0 +1,266 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * Where the time of a run went: how long every spec took to evaluate and every entity to
+ * generate, along with the HTTP calls and cache lookups made meanwhile, totaled per layer and
+ * per entity type.
+ * <p>
+ * HTTP calls and cache lookups are attributed to the spec or entity being processed by the
+ * calling thread, the ones made outside of any, like logging in, to the run.
+ */
+@Slf4j
+@Data
+public class RunReport {
+    private static final ThreadLocal<Row> CURRENT = new ThreadLocal<>();
+    private static final Pattern ID_SEGMENT = Pattern
+            .compile("/([0-9a-fA-F]{8}-[0-9a-fA-F-]{27}|[0-9]+)(?=/|$)");
+
+    private static volatile RunReport active;
+
+    private long durationMillis;
+    private Row run = new Row();
+    private List<Row> specs = new ArrayList<>();
+    private List<Row> entities = new ArrayList<>();
+    private Map<Integer, Totals> layers = new TreeMap<>();
+    private Map<String, Totals> types = new TreeMap<>();
+
+    @JsonIgnore
+    private final long start = System.currentTimeMillis();
+
+    @JsonIgnore
+    private final Map<GenerationEntity, Integer> entityLayers = new IdentityHashMap<>();
+
+    /**
+     * Start recording a new report
+     */
+    public static RunReport start() {
+        RunReport report = new RunReport();
+        active = report;
+        return report;
+    }
+
+    /**
+     * Stop recording and write the report
+     */
+    public void save(File reportFile) {
+        active = null;
+        durationMillis = System.currentTimeMillis() - start;
+        synchronized (this) {
+            for (Row spec : specs) {
+                layers.computeIfAbsent(spec.layer, l -> new Totals()).addSpec(spec);
+            }
+            for (Row entity : entities) {
+                layers.computeIfAbsent(entity.layer, l -> new Totals()).addEntity(entity);
+                types.computeIfAbsent(entity.type, t -> new Totals()).addEntity(entity);
+            }
+
+            try {
+                FileUtils.writeStringToFile(reportFile, SerializationUtils.toPrettyJson(this),
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                log.warn("Failed to write run report " + reportFile, e);
+            }
+        }
+    }
+
+    public static void addLayer(int layer, List<GenerationEntity> entities) {
+        RunReport report = active;
+        if (report != null) {
+            synchronized (report) {
+                entities.forEach(e -> report.entityLayers.put(e, layer));
+            }
+        }
+    }
+
+    /**
+     * Attribute the calls of the current thread to the evaluation of the spec, until
+     * {@link #finish(Row, String)}
+     *
+     * @return the row of the spec or null when no report is recorded
+     */
+    public static Row startSpec(File spec, int layer) {
+        RunReport report = active;
+        if (report == null) {
+            return null;
+        }
+
+        Row row = new Row();
+        row.name = spec.getPath();
+        row.layer = layer;
+        synchronized (report) {
+            report.specs.add(row);
+        }
+        CURRENT.set(row);
+        return row;
+    }
+
+    /**
+     * Attribute the calls of the current thread to the generation of the entity, until
+     * {@link #finish(Row, String)}
+     *
+     * @return the row of the entity or null when no report is recorded
+     */
+    public static Row startEntity(GenerationEntity entity) {
+        RunReport report = active;
+        if (report == null) {
+            return null;
+        }
+
+        Row row = new Row();
+        row.name = GenerationCostEstimator.getEntityKey(entity);
+        row.type = entity.getClass().getSimpleName();
+        synchronized (report) {
+            row.layer = report.entityLayers.getOrDefault(entity, 0);
+            report.entities.add(row);
+        }
+        CURRENT.set(row);
+        return row;
+    }
+
+    public static void finish(Row row, String status) {
+        if (row == null) {
+            return;
+        }
+
+        row.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - row.startNanos);
+        row.status = status;
+        CURRENT.remove();
+    }
+
+    public static void recordHttpCall(String method, String path, long durationNanos,
+            boolean failed) {
+        Row row = getCurrentRow();
+        if (row != null) {
+            row.recordHttpCall(method + " " + ID_SEGMENT.matcher(path).replaceAll("/{id}"),
+                    durationNanos, failed);
+        }
+    }
+
+    public static void recordCacheLookup(boolean hit) {
+        Row row = getCurrentRow();
+        if (row != null) {
+            row.recordCacheLookup(hit);
+        }
+    }
+
+    private static Row getCurrentRow() {
+        RunReport report = active;
+        if (report == null) {
+            return null;
+        }
+
+        Row row = CURRENT.get();
+        return row != null ? row : report.run;
+    }
+
+    @Data
+    public static class Row {
+        /**
+         * Spec path or entity type and name
+         */
+        private String name;
+        private String type;
+        private int layer;
+        private String status;
+        private long durationMillis;
+        private long cacheHits;
+        private long cacheMisses;
+
+        /**
+         * Calls by method and path, with ids replaced by {id}
+         */
+        private Map<String, HttpCalls> httpCalls = new TreeMap<>();
+
+        @JsonIgnore
+        private final long startNanos = System.nanoTime();
+
+        private synchronized void recordHttpCall(String endpoint, long durationNanos,
+                boolean failed) {
+            HttpCalls calls = httpCalls.computeIfAbsent(endpoint, e -> new HttpCalls());
+            calls.count++;
+            calls.totalNanos += durationNanos;
+            calls.totalMillis = TimeUnit.NANOSECONDS.toMillis(calls.totalNanos);
+            if (failed) {
+                calls.failures++;
+            }
+        }
+
+        private synchronized void recordCacheLookup(boolean hit) {
+            if (hit) {
+                cacheHits++;
+            } else {
+                cacheMisses++;
+            }
+        }
+    }
+
+    @Data
+    public static class HttpCalls {
+        private long count;
+        private long totalMillis;
+
+        /**
+         * Calls answered with an error status or failing with an exception
+         */
+        private long failures;
+
+        @JsonIgnore
+        private long totalNanos;
+    }
+
+    @Data
+    public static class Totals {
+        private long specs;
+        private long evaluationMillis;
+        private long entities;
+        private long generationMillis;
+        private long httpCalls;
+        private long httpMillis;
+        private long cacheHits;
+        private long cacheMisses;
+
+        private void addSpec(Row spec) {
+            specs++;
+            evaluationMillis += spec.durationMillis;
+            addCalls(spec);
+        }
+
+        private void addEntity(Row entity) {
+            entities++;
+            generationMillis += entity.durationMillis;
+            addCalls(entity);
+        }
+
+        private void addCalls(Row row) {
+            for (HttpCalls calls : row.httpCalls.values()) {
+                httpCalls += calls.count;
+                httpMillis += calls.totalMillis;
+            }
+            cacheHits += row.cacheHits;
+            cacheMisses += row.cacheMisses;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import com.vmware.devops.model.GenerationEntity;
+
+/**
+ * The entities of the specs evaluated by previous runs, so specs which didn't change are not
+ * evaluated again.
+ * <p>
+ * The entities are keyed by the source of the spec and the context configuration at the time it
+ * is evaluated, and kept along with the hashes of the files the spec and its entities read
+ * through {@link Utils}. Specs which change the context configuration are always evaluated, as
+ * skipping them would skip the change. So are specs with entities which don't serialize back to
+ * themselves, like the ones with classes declared by the spec.
+ * <p>
+ * Specs have to be deterministic functions of their source, the context and the files they read
+ * through {@link Utils}, which is why the cache is opt-in.
+ */
+@Slf4j
+public class SpecOutputCache {
+    private static final ObjectMapper ENTITY_MAPPER = JsonMapper.builder()
+            .visibility(PropertyAccessor.ALL, Visibility.NONE)
+            .visibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .serializationInclusion(Include.NON_NULL)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true)
+            .activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                    .allowIfSubType("com.vmware.devops.")
+                    .allowIfSubType("java.util.")
+                    .allowIfSubType("java.lang.")
+                    .build(), DefaultTyping.NON_FINAL)
+            .build();
+
+    private final File cacheFile;
+    private final Content content;
+
+    /**
+     * Entries hit or added in this run. Anything else is dropped on save.
+     */
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private SpecOutputCache(File cacheFile, Content content) {
+        this.cacheFile = cacheFile;
+        this.content = content;
+    }
+
+    /**
+     * @param cacheFile
+     *         entities of previous runs, may not exist yet
+     */
+    public static SpecOutputCache load(File cacheFile) {
+        Content content = new Content();
+        if (cacheFile.isFile()) {
+            try {
+                content = SerializationUtils.fromJson(
+                        FileUtils.readFileToString(cacheFile, StandardCharsets.UTF_8), content);
+            } catch (IOException e) {
+                log.warn("Failed to read spec output cache " + cacheFile, e);
+            }
+        }
+
+        return new SpecOutputCache(cacheFile, content);
+    }
+
+    /**
+     * Evaluate the spec, or take its entities from the cache when it and what it depends on are
+     * unchanged
+     */
+    public Object process(String spec, SpecProcessor specProcessor) {
+        String configuration;
+        try {
+            configuration = GenerationManifest.getConfigurationSnapshot();
+        } catch (IOException e) {
+            log.debug("Failed to serialize the context configuration", e);
+            return specProcessor.process(spec);
+        }
+
+        String key = Utils.sha256((SpecProcessor.VERSIONS + "\n" + configuration + spec)
+                .getBytes(StandardCharsets.UTF_8));
+        Entry entry = content.entries.get(key);
+        if (entry != null && isUnchanged(entry)) {
+            List<GenerationEntity> entities = read(entry);
+            if (entities != null) {
+                current.put(key, entry);
+                hits.incrementAndGet();
+                return entities;
+            }
+        }
+
+        Set<String> readFiles = ConcurrentHashMap.newKeySet();
+        Object result;
+        Utils.trackReads(readFiles);
+        try {
+            result = specProcessor.process(spec);
+        } finally {
+            Utils.trackReads(null);
+        }
+
+        try {
+            if (configuration.equals(GenerationManifest.getConfigurationSnapshot())) {
+                entry = write(result, readFiles);
+                if (entry != null) {
+                    current.put(key, entry);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed to cache the entities of a spec", e);
+        }
+
+        return result;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public void save() {
+        content.entries = new TreeMap<>(current);
+        try {
+            FileUtils.writeStringToFile(cacheFile, SerializationUtils.toJson(content),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to write spec output cache " + cacheFile, e);
+        }
+    }
+
+    private static boolean isUnchanged(Entry entry) {
+        try {
+            for (Map.Entry<String, String> file : entry.inputFiles.entrySet()) {
+                if (!file.getValue().equals(Utils.sha256(Utils.readBytes(file.getKey())))) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    private static List<GenerationEntity> read(Entry entry) {
+        List<GenerationEntity> entities = new ArrayList<>();
+        try {
+            for (String entity : entry.entities) {
+                entities.add(ENTITY_MAPPER.readValue(entity, GenerationEntity.class));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Failed to read cached entities", e);
+            return null;
+        }
+
+        return entities;
+    }
+
+    /**
+     * @return the entry of the result or null if it can't be cached
+     */
+    private static Entry write(Object result, Set<String> readFiles) throws IOException {
+        List<GenerationEntity> entities;
+        if (result instanceof List) {
+            entities = new ArrayList<>();
+            for (Object o : (List<?>) result) {
+                if (!(o instanceof GenerationEntity)) {
+                    return null;
+                }
+                entities.add((GenerationEntity) o);
+            }
+        } else if (result instanceof GenerationEntity) {
+            entities = List.of((GenerationEntity) result);
+        } else {
+            return null;
+        }
+
+        Entry entry = new Entry();
+        Set<String> inputFiles = new HashSet<>(readFiles);
+        for (GenerationEntity entity : entities) {
+            String json = ENTITY_MAPPER.writerFor(GenerationEntity.class)
+                    .writeValueAsString(entity);
+            try {
+                GenerationEntity copy = ENTITY_MAPPER.readValue(json, GenerationEntity.class);
+                if (!json.equals(ENTITY_MAPPER.writerFor(GenerationEntity.class)
+                        .writeValueAsString(copy))) {
+                    return null;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.debug("Not caching " + entity.describe() + ", it can't be read back", e);
+                return null;
+            }
+
+            entry.entities.add(json);
+            inputFiles.addAll(entity.inputFiles());
+        }
+
+        for (String inputFile : inputFiles) {
+            entry.inputFiles.put(inputFile, Utils.sha256(Utils.readBytes(inputFile)));
+        }
+
+        return entry;
+    }
+
+    @Data
+    public static class Content {
+        /**
+         * Entries by hash of the spec and the context configuration
+         */
+        private Map<String, Entry> entries = new TreeMap<>();
+    }
+
+    @Data
+    public static class Entry {
+        /**
+         * Hash by path of the files read by the spec and its entities
+         */
+        private Map<String, String> inputFiles = new TreeMap<>();
+
+        /**
+         * The entities, serialized with their types
+         */
+        private List<String> entities = new ArrayList<>();
+    }
+}
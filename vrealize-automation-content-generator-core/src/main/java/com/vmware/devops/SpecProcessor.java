@@ -5,15 +5,510 @@
 
 package com.vmware.devops;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
+import groovy.transform.CompileStatic;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilePhase;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.tools.GroovyClass;
 
+/**
+ * Evaluates specs with the generation context bound as "context".
+ * <p>
+ * With a cache directory, the classes compiled from a spec are stored under the hash of its
+ * source, the version of the generator, the version of Groovy and the classpath it is compiled
+ * against. Unchanged specs are then only run, not compiled again. Setting the
+ * "script.cache.disabled" system property always compiles. The cache directory may be shared by
+ * runs of different specs, so cached specs are only pruned once unused for
+ * "script.cache.retentionDays", 30 by default.
+ * <p>
+ * All specs of a processor are compiled with the same configuration and defined by the same class
+ * loader, so a spec evaluated again reuses its classes and the classes of all specs are unloaded
+ * together once the processor is dropped, or its classes released between runs.
+ * <p>
+ * Specs are compiled statically when a processor is made to, or per spec when one of its imports
+ * is annotated with {@code @groovy.transform.CompileStatic}, e.g.
+ * <pre>
+ * {@literal @}CompileStatic
+ * import groovy.transform.CompileStatic
+ * </pre>
+ */
+@Slf4j
 public class SpecProcessor {
+    public static final boolean CACHE_DISABLED = Boolean.getBoolean("script.cache.disabled");
+
+    static final String VERSIONS = getGeneratorVersion() + "\n" + GroovySystem.getVersion();
+
+    static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(
+            Long.getLong("script.cache.retentionDays", 30));
+
+    private static final String GROOVY_SUFFIX = ".groovy";
+
+    private static final CompilerConfiguration DYNAMIC_CONFIGURATION = createConfiguration(false);
+    private static final CompilerConfiguration STATIC_CONFIGURATION = createConfiguration(true);
+
+    /**
+     * Annotations applying to the whole spec when put on one of its imports
+     */
+    private static final Set<String> SCRIPT_ANNOTATIONS = Set.of("CompileStatic", "TypeChecked");
+
+    private final File cacheDir;
+    private final boolean compileStatic;
+    private final String classpath;
+    private final CompilerConfiguration configuration;
+    private final GroovyClassLoader compileClassLoader;
+    private volatile SpecClassLoader specClassLoader;
+    private final Map<String, Class<? extends Script>> scriptClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of the specs of this processor, whose compiled classes are kept by {@link #pruneCache()}
+     */
+    private final Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+
+    public SpecProcessor() {
+        this(null);
+    }
+
+    /**
+     * @param cacheDir
+     *         directory keeping the compiled specs, null to always compile
+     */
+    public SpecProcessor(File cacheDir) {
+        this(cacheDir, false);
+    }
+
+    /**
+     * @param compileStatic
+     *         compile all specs statically, instead of only the ones annotated to be
+     */
+    public SpecProcessor(File cacheDir, boolean compileStatic) {
+        this.cacheDir = CACHE_DISABLED ? null : cacheDir;
+        this.compileStatic = compileStatic;
+        this.classpath = getClasspathFingerprint(getParentClassLoader());
+        this.configuration = compileStatic ? STATIC_CONFIGURATION : DYNAMIC_CONFIGURATION;
+        this.compileClassLoader = new GroovyClassLoader(getParentClassLoader(), configuration);
+        this.specClassLoader = new SpecClassLoader(getParentClassLoader());
+    }
+
     public Object process(String content) {
+        return run(compile(content));
+    }
+
+    /**
+     * Run a compiled spec, like the ones compiled by groovyc
+     */
+    public Object run(Class<? extends Script> scriptClass) {
         Binding binding = new Binding();
         binding.setVariable("context", GenerationContext.getInstance());
-        GroovyShell shell = new GroovyShell(binding);
 
-        return shell.evaluate(content);
+        return InvokerHelper.createScript(scriptClass, binding).run();
+    }
+
+    /**
+     * @return the script class of the spec
+     */
+    public Class<? extends Script> compile(String content) {
+        String key = getKey(content);
+        Class<? extends Script> scriptClass = scriptClasses.get(key);
+        if (scriptClass != null) {
+            return scriptClass;
+        }
+
+        CompiledSpec compiled = load(key);
+        if (compiled == null) {
+            compiled = compile(getScriptName(key), content);
+            save(key, compiled);
+        }
+
+        return define(key, compiled);
+    }
+
+    /**
+     * Compile the specs neither compiled nor cached yet together, so the classes they have in
+     * common are resolved once rather than for every spec, and the errors of all specs are
+     * reported at once. When any spec fails to compile, the specs are left to be compiled one by
+     * one by {@link #compile(String)}, failing only the broken ones.
+     */
+    public void compileAll(Collection<String> contents) {
+        Map<String, String> keys = new HashMap<>();
+        CompilationUnit unit = new CompilationUnit(configuration, null, compileClassLoader);
+        for (String content : contents) {
+            String key = getKey(content);
+            String name = getScriptName(key);
+            if (scriptClasses.containsKey(key) || keys.containsKey(name)) {
+                continue;
+            }
+
+            CompiledSpec cached = load(key);
+            if (cached != null) {
+                define(key, cached);
+            } else {
+                keys.put(name, key);
+                unit.addSource(name + GROOVY_SUFFIX, content);
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            unit.compile(Phases.CLASS_GENERATION);
+        } catch (CompilationFailedException e) {
+            log.error("Failed to compile " + keys.size() + " specs together, compiling them one "
+                    + "by one\n" + e.getMessage());
+            return;
+        }
+
+        getCompiledSpecs(unit).forEach((name, spec) -> {
+            save(keys.get(name), spec);
+            define(keys.get(name), spec);
+        });
+        log.info("Compiled " + keys.size() + " specs");
+    }
+
+    /**
+     * Forget the classes of the specs evaluated so far, so the ones of changed specs can be
+     * unloaded. Called between the runs of a long-lived processor, e.g. in watch mode, while no
+     * spec is compiled or run.
+     */
+    public void releaseClasses() {
+        specClassLoader = new SpecClassLoader(getParentClassLoader());
+        scriptClasses.clear();
+        usedKeys.clear();
+    }
+
+    /**
+     * Mark the cached classes of the specs this processor compiled or loaded as used, and delete
+     * the ones no run used for the retention period, e.g. of specs since changed or deleted. Other
+     * runs sharing the cache directory may use specs this one didn't, so those are kept until
+     * then. Has to be called once all specs of the run went through {@link
+     * #compileAll(Collection)}, and not while specs are compiled.
+     */
+    public void pruneCache() {
+        File[] files = cacheDir != null ? cacheDir.listFiles() : null;
+        if (files == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int pruned = 0;
+        for (File file : files) {
+            if (usedKeys.contains(file.getName())) {
+                file.setLastModified(now);
+            } else if (now - file.lastModified() > RETENTION_MILLIS && file.delete()) {
+                pruned++;
+            }
+        }
+        if (pruned > 0) {
+            log.info("Pruned " + pruned + " compiled specs not used for "
+                    + TimeUnit.MILLISECONDS.toDays(RETENTION_MILLIS) + " days");
+        }
+    }
+
+    private String getKey(String content) {
+        String key = Utils.sha256((VERSIONS + "\n" + classpath + "\n" + compileStatic + "\n"
+                + content).getBytes(StandardCharsets.UTF_8));
+        usedKeys.add(key);
+        return key;
+    }
+
+    private static String getScriptName(String key) {
+        return "Spec" + key.substring(0, 32);
+    }
+
+    private Class<? extends Script> define(String key, CompiledSpec compiled) {
+        Class<? extends Script> scriptClass = specClassLoader.define(compiled);
+        Class<? extends Script> previous = scriptClasses.putIfAbsent(key, scriptClass);
+        return previous != null ? previous : scriptClass;
+    }
+
+    private CompiledSpec compile(String name, String content) {
+        CompilationUnit unit = new CompilationUnit(configuration, null, compileClassLoader);
+        unit.addSource(name + GROOVY_SUFFIX, content);
+        unit.compile(Phases.CLASS_GENERATION);
+        return getCompiledSpecs(unit).get(name);
+    }
+
+    /**
+     * @return the classes of every spec of the unit, by the name of its source
+     */
+    private static Map<String, CompiledSpec> getCompiledSpecs(CompilationUnit unit) {
+        Map<String, CompiledSpec> compiled = new HashMap<>();
+        for (ModuleNode module : unit.getAST().getModules()) {
+            // The script class is in the package declared by the spec, if any
+            ClassNode scriptClass = module.getClasses().stream()
+                    .filter(ClassNode::isScript)
+                    .findFirst()
+                    .orElseGet(() -> module.getClasses().get(0));
+            compiled.put(getSourceName(module), new CompiledSpec(scriptClass.getName()));
+        }
+
+        // Inner classes and closures are named after the top level class they belong to, which
+        // knows the spec declaring it
+        for (GroovyClass c : unit.getClasses()) {
+            ModuleNode module = unit.getAST().getClass(c.getName().split("\\$", 2)[0])
+                    .getModule();
+            compiled.get(getSourceName(module)).classes.put(c.getName(), c.getBytes());
+        }
+
+        return compiled;
+    }
+
+    private static String getSourceName(ModuleNode module) {
+        String source = module.getContext().getName();
+        return source.substring(0, source.length() - GROOVY_SUFFIX.length());
+    }
+
+    private CompiledSpec load(String key) {
+        if (cacheDir == null) {
+            return null;
+        }
+
+        File file = new File(cacheDir, key);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+            CompiledSpec compiled = new CompiledSpec(in.readUTF());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String className = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                compiled.classes.put(className, bytes);
+            }
+
+            return compiled;
+        } catch (IOException e) {
+            log.warn("Failed to read compiled spec " + file + ", compiling it again", e);
+            return null;
+        }
+    }
+
+    private void save(String key, CompiledSpec compiled) {
+        if (cacheDir == null) {
+            return;
+        }
+
+        File file = new File(cacheDir, key);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(compiled.scriptClass);
+                out.writeInt(compiled.classes.size());
+                for (Map.Entry<String, byte[]> c : compiled.classes.entrySet()) {
+                    out.writeUTF(c.getKey());
+                    out.writeInt(c.getValue().length);
+                    out.write(c.getValue());
+                }
+            }
+
+            // Specs are compiled in parallel, so never expose a partially written file
+            Files.createDirectories(cacheDir.toPath());
+            File temp = File.createTempFile(key, ".tmp", cacheDir);
+            Files.write(temp.toPath(), bytes.toByteArray());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to cache compiled spec " + file, e);
+        }
+    }
+
+    private static CompilerConfiguration createConfiguration(boolean compileStatic) {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setScriptBaseClass(SpecScript.class.getName());
+        configuration.addCompilationCustomizers(new ScriptAnnotationCustomizer());
+        if (compileStatic) {
+            configuration.addCompilationCustomizers(
+                    new ASTTransformationCustomizer(CompileStatic.class));
+        }
+
+        // Type checking reads the classes it checks against. Loading them rather than reading
+        // their class files keeps it working on JDKs newer than the bundled ASM supports.
+        configuration.getOptimizationOptions().put("asmResolving", false);
+
+        // The specs compiled together are parsed in parallel, the later phases can't be
+        configuration.getOptimizationOptions().put(CompilerConfiguration.PARALLEL_PARSE, true);
+        return configuration;
+    }
+
+    private static ClassLoader getParentClassLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : SpecProcessor.class.getClassLoader();
+    }
+
+    /**
+     * The entries of the classpath the specs are compiled against, with their modification time
+     * and size, so a changed library compiles the specs again. Directories change when files are
+     * added or removed only.
+     */
+    private static String getClasspathFingerprint(ClassLoader loader) {
+        Set<String> entries = new LinkedHashSet<>(Arrays.asList(
+                System.getProperty("java.class.path", "").split(File.pathSeparator)));
+        for (ClassLoader l = loader; l != null; l = l.getParent()) {
+            if (l instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) l).getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        entries.add(new File(url.getPath()).getPath());
+                    }
+                }
+            }
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (String entry : entries) {
+            File file = new File(entry);
+            fingerprint.append(entry).append('@').append(file.lastModified()).append('@')
+                    .append(file.length()).append('\n');
+        }
+
+        return Utils.sha256(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The version of the generator, along with the modification time of its jar or classes, so
+     * development builds of the same version don't share compiled specs
+     */
+    private static String getGeneratorVersion() {
+        String version = SpecProcessor.class.getPackage().getImplementationVersion();
+        CodeSource codeSource = SpecProcessor.class.getProtectionDomain().getCodeSource();
+        long lastModified = 0;
+        if (codeSource != null && "file".equals(codeSource.getLocation().getProtocol())) {
+            lastModified = new File(codeSource.getLocation().getPath()).lastModified();
+        }
+
+        return version + "@" + lastModified;
+    }
+
+    /**
+     * Moves the {@link #SCRIPT_ANNOTATIONS} put on the imports of a spec to its script class, as a
+     * script has no declaration of its own to annotate
+     */
+    private static class ScriptAnnotationCustomizer extends CompilationCustomizer {
+        private ScriptAnnotationCustomizer() {
+            super(CompilePhase.CONVERSION);
+        }
+
+        @Override
+        public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) {
+            if (!classNode.isScript()) {
+                return;
+            }
+
+            ModuleNode module = source.getAST();
+            List<AnnotatedNode> imports = new ArrayList<>(module.getImports());
+            imports.addAll(module.getStarImports());
+            imports.addAll(module.getStaticImports().values());
+            imports.addAll(module.getStaticStarImports().values());
+            for (AnnotatedNode node : imports) {
+                Iterator<AnnotationNode> annotations = node.getAnnotations().iterator();
+                while (annotations.hasNext()) {
+                    AnnotationNode annotation = annotations.next();
+                    if (SCRIPT_ANNOTATIONS.contains(
+                            annotation.getClassNode().getNameWithoutPackage())) {
+                        annotations.remove();
+                        classNode.addAnnotation(annotation);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class CompiledSpec {
+        private final String scriptClass;
+        private final Map<String, byte[]> classes = new LinkedHashMap<>();
+
+        private CompiledSpec(String scriptClass) {
+            this.scriptClass = scriptClass;
+        }
+    }
+
+    /**
+     * Defines the classes of the compiled specs as they are needed. A spec declaring a class by the
+     * same name as a class of another spec gets a loader of its own, as one loader can define a
+     * name only once.
+     */
+    private static class SpecClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes = new HashMap<>();
+
+        private SpecClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<? extends Script> define(CompiledSpec compiled) {
+            SpecClassLoader loader = this;
+            synchronized (this) {
+                boolean conflicts = compiled.classes.entrySet().stream().anyMatch(c -> {
+                    byte[] bytes = classes.get(c.getKey());
+                    return bytes != null && !Arrays.equals(bytes, c.getValue());
+                });
+                if (conflicts) {
+                    loader = new SpecClassLoader(getParent());
+                }
+                loader.classes.putAll(compiled.classes);
+            }
+
+            try {
+                return loader.loadClass(compiled.scriptClass).asSubclass(Script.class);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes;
+            synchronized (this) {
+                bytes = classes.get(name);
+            }
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+
+            return defineClass(name, bytes, 0, bytes.length);
+        }
     }
 }
@@ -0,0 +1,18 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import groovy.lang.Script;
+
+/**
+ * Base class of the specs compiled by {@link SpecProcessor}. Declares the bound "context", so
+ * statically compiled specs can use it too.
+ */
+public abstract class SpecScript extends Script {
+    public GenerationContext getContext() {
+        return (GenerationContext) getBinding().getVariable("context");
+    }
+}
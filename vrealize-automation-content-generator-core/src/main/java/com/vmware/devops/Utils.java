@@ -6,56 +6,97 @@
 package com.vmware.devops;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.security.KeyManagementException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.util.Base64;
 import java.util.Properties;
+import java.util.Set;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
-import org.apache.commons.io.IOUtils;
-
 public class Utils {
     public static final String BEGIN_CERT = "-----BEGIN CERTIFICATE-----";
     public static final String END_CERT = "-----END CERTIFICATE-----";
 
+    private static final ThreadLocal<Set<String>> READ_FILES = new ThreadLocal<>();
+    private static final ResourceCache RESOURCES = new ResourceCache();
+
+    /**
+     * Read a file, or a classpath resource if there is no such file. Content read before is
+     * reused while the file is unchanged, see {@link ResourceCache}.
+     */
     public static String readFile(String filePath) throws IOException {
-        return IOUtils.toString(getInputStream(filePath), StandardCharsets.UTF_8);
+        trackRead(filePath);
+        return RESOURCES.readText(filePath);
     }
 
     public static Properties readProperties(String filePath) {
-        Properties properties = new Properties();
+        trackRead(filePath);
         try {
-            properties.load(getInputStream(filePath));
+            return RESOURCES.readProperties(filePath);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
+    }
 
-        return properties;
+    public static byte[] readBytes(String filePath) throws IOException {
+        trackRead(filePath);
+        return RESOURCES.readBytes(filePath);
     }
 
-    private static InputStream getInputStream(String filePath) throws FileNotFoundException {
-        File file = new File(filePath);
-        if (file.isFile() && file.exists()) {
-            return new FileInputStream(file);
+    /**
+     * Read the files again on the next use, e.g. between runs
+     */
+    public static void clearResources() {
+        RESOURCES.clear();
+    }
+
+    /**
+     * Hex encoded SHA-256 digest of the data
+     */
+    public static String sha256(byte[] data) {
+        try {
+            return String.format("%064x",
+                    new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(data)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
+    }
 
-        return Thread.currentThread().getContextClassLoader()
-                .getResourceAsStream(filePath);
+    /**
+     * Add the paths of the files read by the current thread to readFiles, until called with null
+     */
+    public static void trackReads(Set<String> readFiles) {
+        if (readFiles == null) {
+            READ_FILES.remove();
+        } else {
+            READ_FILES.set(readFiles);
+        }
+    }
+
+    private static void trackRead(String filePath) {
+        Set<String> readFiles = READ_FILES.get();
+        if (readFiles != null) {
+            readFiles.add(filePath);
+        }
     }
 
     public static String urlEncode(String s) throws UnsupportedEncodingException {
@@ -115,6 +156,45 @@ public class Utils {
         }
     }
 
+    /**
+     * Write a file only its owner can read, e.g. one holding secrets. The permissions are set
+     * when the file is created, so the content is never readable by others.
+     */
+    public static void writeOwnerOnlyFile(File output, byte[] data) throws IOException {
+        Path path = output.toPath();
+        Files.deleteIfExists(path);
+        if (isPosix()) {
+            Files.createFile(path, PosixFilePermissions
+                    .asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            output.setReadable(false, false);
+            output.setReadable(true, true);
+            output.setWritable(false, false);
+            output.setWritable(true, true);
+        }
+        Files.write(path, data);
+    }
+
+    /**
+     * @return whether only the owner of the file can read or write it, always true where the
+     * file system has no POSIX permissions
+     */
+    public static boolean isOwnerOnly(File file) throws IOException {
+        if (!isPosix()) {
+            return true;
+        }
+
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file.toPath());
+        return permissions.stream().allMatch(p -> p == PosixFilePermission.OWNER_READ
+                || p == PosixFilePermission.OWNER_WRITE
+                || p == PosixFilePermission.OWNER_EXECUTE);
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
     public static boolean isEmpty(String s) {
         return s == null || s.isEmpty();
     }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs every task on its own virtual thread. How many tasks run at once is limited by a semaphore
+ * instead of by the size of a thread pool, which suits the blocking HTTP calls done by generate().
+ * <p>
+ * Virtual threads need Java 21 while the generator targets Java 11, so the executor is looked up
+ * reflectively. Older runtimes get a new platform thread per task instead, limited the same way.
+ */
+@Slf4j
+public class VirtualThreadExecutor implements Executor, AutoCloseable {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    public VirtualThreadExecutor(int maxConcurrency) {
+        this.delegate = newVirtualThreadPerTaskExecutor();
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by this Java runtime, "
+                    + "using a platform thread per entity instead");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import com.vmware.devops.SerializationUtils;
+
+/**
+ * Runs the jobs of a YAML manifest one after the other in a single process, e.g. pushing the same
+ * content to several instances:
+ * <pre>
+ * jobs:
+ *   - name: production
+ *     instance: https://production
+ *     loginInstance: https://console.cloud.vmware.com
+ *     credentials: env:PRODUCTION_TOKEN
+ *     args: [ "--path", "src/main/resources" ]
+ * </pre>
+ */
+@Command(name = "batch", mixinStandardHelpOptions = true,
+        description = "Run the generate and reverse generate jobs of a manifest. The jobs run "
+                + "sequentially, in the order of the manifest. Run several batches to run jobs "
+                + "concurrently.")
+@Slf4j
+public class Batch implements Callable<Integer> {
+    @Option(names = { "-m", "--manifest" }, paramLabel = "FILE",
+            description = "YAML file listing the jobs",
+            required = true
+    )
+    private File manifest;
+
+    @Option(names = { "--fail-fast" },
+            description = "Skip the remaining jobs after a job failed",
+            defaultValue = "false"
+    )
+    private boolean failFast;
+
+    private final JobRunner jobRunner;
+
+    public Batch() {
+        this(new JobRunner());
+    }
+
+    public Batch(JobRunner jobRunner) {
+        this.jobRunner = jobRunner;
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        List<Job> jobs = SerializationUtils.fromYaml(
+                FileUtils.readFileToString(manifest, StandardCharsets.UTF_8), new Manifest())
+                .getJobs();
+
+        Map<String, String> results = new LinkedHashMap<>();
+        int exitCode = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            String name = job.getName() != null ? job.getName() : "job " + (i + 1);
+            if (failFast && exitCode != 0) {
+                results.put(name, "skipped");
+                continue;
+            }
+
+            log.info(String.format("Running %s: %s %s", name, job.getCommand(),
+                    job.getInstance() == null ? "" : job.getInstance()));
+            long start = System.currentTimeMillis();
+            int status;
+            try {
+                status = jobRunner.run(job, null);
+            } catch (Exception e) {
+                log.error("Failed to run " + name, e);
+                status = 1;
+            }
+
+            if (status != 0) {
+                exitCode = 1;
+            }
+            results.put(name, String.format("exit status %s after %ss", status,
+                    (System.currentTimeMillis() - start) / 1000));
+        }
+
+        results.forEach((name, result) -> log.info(name + ": " + result));
+        return exitCode;
+    }
+
+    public static void main(String... args) {
+        int exitCode = new CommandLine(new Batch()).execute(args);
+        System.exit(exitCode);
+    }
+
+    @Data
+    public static class Manifest {
+        private List<Job> jobs = new ArrayList<>();
+    }
+}
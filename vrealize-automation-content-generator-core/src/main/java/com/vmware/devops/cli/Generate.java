@@ -7,30 +7,59 @@ package com.vmware.devops.cli;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
 
+import com.vmware.devops.BoundedCache;
 import com.vmware.devops.GenerationContext;
+import com.vmware.devops.GenerationCostEstimator;
+import com.vmware.devops.GenerationGraph;
+import com.vmware.devops.GenerationJournal;
+import com.vmware.devops.GenerationManifest;
+import com.vmware.devops.GenerationPlan;
+import com.vmware.devops.GenerationScheduler;
+import com.vmware.devops.IdCache;
+import com.vmware.devops.RunReport;
+import com.vmware.devops.SpecOutputCache;
 import com.vmware.devops.SpecProcessor;
+import com.vmware.devops.VirtualThreadExecutor;
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
 import com.vmware.devops.config.EndpointConfiguration.AuthenticationDetails;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 
 @Slf4j
 public class Generate implements Callable<Integer> {
     private static final int MAX_ORDER = 999;
-    private static final Pattern ORDER_PATTERN = Pattern.compile("^[0-9]{1,3}(?=-)");
+    private static final String DEFAULT_FILTER = ".*\\.groovy";
 
     @Option(names = { "--path" },
             description = "Path to file or directory containing the specs",
@@ -38,12 +67,48 @@ public class Generate implements Callable<Integer> {
     )
     private File path;
 
+    @Option(names = { "--classes" }, paramLabel = "PATH",
+            description = "Directory or jar with the specs compiled by groovyc, run instead of "
+                    + "evaluating the specs under --path",
+            required = false
+    )
+    private File classes;
+
+    @Option(names = { "--compile-static" },
+            description = "Compile all specs statically, reporting type errors when compiling "
+                    + "rather than running them. Single specs can opt in with @CompileStatic on "
+                    + "one of their imports",
+            defaultValue = "false"
+    )
+    private boolean compileStatic;
+
+    @Option(names = { "--cache-spec-output" },
+            description = "Keep the entities of the evaluated specs in --cache-dir and reuse them "
+                    + "instead of evaluating specs whose source, context configuration and files "
+                    + "read through Utils are unchanged. Specs have to be deterministic",
+            defaultValue = "false"
+    )
+    private boolean cacheSpecOutput;
+
     @Option(names = { "--filter" },
             description = "Regex to filter the specs from other files",
-            defaultValue = ".*\\.groovy"
+            defaultValue = DEFAULT_FILTER
     )
     private String filter;
 
+    @Option(names = { "--exclude" }, paramLabel = "GLOB",
+            description = "Skip the files and directories with a path relative to --path or a "
+                    + "name matching GLOB, e.g. target or **/build. Can be repeated"
+    )
+    private List<String> excludes = new ArrayList<>();
+
+    @Option(names = { "--cache-discovery" },
+            description = "Keep the directory listings in --cache-dir and only list the "
+                    + "directories modified since again when finding the specs",
+            defaultValue = "false"
+    )
+    private boolean cacheDiscovery;
+
     @Option(names = { "-i", "--instance" }, paramLabel = "INSTANCE",
             description = "On-prem or cloud instance",
             defaultValue = "https://api.mgmt.cloud.vmware.com")
@@ -69,12 +134,122 @@ public class Generate implements Callable<Integer> {
             required = false)
     private String password;
 
-    @Override
-    public Integer call() {
-        List<List<File>> specs = findSpecs(path, null);
+    @Option(names = { "--strict-ordering" },
+            description = "Wait for all specs with a lower NNN- prefix to be generated, "
+                    + "not only for the entities the generated entity depends on",
+            defaultValue = "false"
+    )
+    private boolean strictOrdering;
+
+    @Option(names = { "--virtual-threads" },
+            description = "Generate every entity on its own virtual thread, limited by "
+                    + "--max-concurrency instead of the number of processors. Needs Java 21",
+            defaultValue = "false"
+    )
+    private boolean virtualThreads;
+
+    @Option(names = { "--max-concurrency" },
+            description = "Maximum number of entities generated at once with --virtual-threads",
+            defaultValue = "64"
+    )
+    private int maxConcurrency;
+
+    @Option(names = { "--cost-history" }, paramLabel = "FILE",
+            description = "File keeping how long entities took to generate. Used to start the "
+                    + "longest dependency chains first and updated after the run",
+            required = false
+    )
+    private File costHistory;
+
+    @Option(names = { "--cache-dir" }, paramLabel = "DIR",
+            description = "Directory keeping state between runs, like the fingerprints of the "
+                    + "generated entities",
+            defaultValue = "target/content-generator-cache"
+    )
+    private File cacheDir;
+
+    @Option(names = { "--full" },
+            description = "Generate all entities, including the ones unchanged since the last "
+                    + "run. Needed when the content was changed on the server directly",
+            defaultValue = "false"
+    )
+    private boolean full;
+
+    @Option(names = { "--resume" },
+            description = "Skip the entities generated by the previous run before it was "
+                    + "interrupted, unless they changed since",
+            defaultValue = "false"
+    )
+    private boolean resume;
+
+    @Option(names = { "--watch" },
+            description = "Keep running after the generation and regenerate the entities of the "
+                    + "specs changed since, along with the entities depending on them",
+            defaultValue = "false"
+    )
+    private boolean watch;
+
+    @Option(names = { "--fail-fast" },
+            description = "Stop the run at the first spec or entity which fails, without "
+                    + "evaluating or generating the rest",
+            defaultValue = "false"
+    )
+    private boolean failFast;
+
+    @Option(names = { "--deadline" }, paramLabel = "DURATION",
+            description = "Stop the run once it takes longer than DURATION, e.g. PT45M. The "
+                    + "specs and entities not done are reported and can be finished with --resume",
+            required = false
+    )
+    private Duration deadline;
+
+    @Option(names = { "--report" }, paramLabel = "FILE",
+            description = "Write how long every spec took to evaluate and every entity to "
+                    + "generate, with the HTTP calls and cache lookups they made, to FILE as JSON",
+            required = false
+    )
+    private File report;
+
+    @Option(names = { "--plan" }, paramLabel = "FILE",
+            description = "Write the changes to FILE instead of generating them, without network "
+                    + "access. Ids are taken from the inventory snapshot of the previous runs. "
+                    + "Secrets are written to FILE.secrets, readable only by its owner",
+            required = false
+    )
+    private File plan;
+
+    @Option(names = { "--apply" }, paramLabel = "FILE",
+            description = "Apply a plan made with --plan instead of evaluating the specs",
+            required = false
+    )
+    private File apply;
+
+    /**
+     * References of the entities of every evaluated spec, to find the dependents of changed specs
+     * in watch mode
+     */
+    private final Map<File, SpecReferences> specReferences = new ConcurrentHashMap<>();
+
+    /**
+     * Why the run was stopped early, null while it goes on
+     */
+    private volatile String cancelReason;
+    private volatile GenerationScheduler activeScheduler;
+    private final List<File> notEvaluated = Collections.synchronizedList(new ArrayList<>());
+    private SpecProcessor specProcessor;
+    private SpecClasses specClasses;
+    private SpecOutputCache specOutputCache;
 
+    @Override
+    public Integer call() throws InterruptedException, IOException {
         GenerationContext.getInstance().getEndpointConfiguration().setInstance(instance);
         GenerationContext.getInstance().getEndpointConfiguration().setLoginInstance(loginInstance);
+        File inventory = new File(cacheDir, "inventory.json");
+        if (plan != null) {
+            prepareSpecs();
+            return plan(inventory);
+        }
+
         if (refreshToken != null) {
             GenerationContext.getInstance().getEndpointConfiguration()
                     .setAuthenticationDetails(new AuthenticationDetails(refreshToken));
@@ -85,78 +260,491 @@ public class Generate implements Callable<Integer> {
             throw new IllegalArgumentException("Refresh token or username/password is required");
         }
 
+        // The deadline bounds this run only, it must not cancel the regenerations of watch mode
+        ScheduledExecutorService deadlineTimer = null;
+        if (deadline != null) {
+            deadlineTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "deadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+            deadlineTimer.schedule(() -> cancel("the deadline of " + deadline + " was reached"),
+                    deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
         AtomicInteger exitCode = new AtomicInteger(0);
-        ForkJoinTask<?> task = GenerationContext.getInstance().getThreadPool().submit(() ->
-                specs.stream().forEach(layer -> layer.parallelStream().flatMap(f -> {
-                    log.info("Processing " + f);
-                    String content;
-                    try {
-                        content = IOUtils.toString(new FileInputStream(f), StandardCharsets.UTF_8);
-                        SpecProcessor specProcessor = new SpecProcessor();
-                        Object o = specProcessor.process(content);
-                        if (o instanceof List) {
-                            return ((List<GenerationEntity>) o).stream();
-                        } else if (o instanceof GenerationEntity) {
-                            return Stream.of((GenerationEntity) o);
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to process file: " + f, e);
-                        exitCode.set(1);
-                        return Stream.empty();
+        try {
+            run(exitCode);
+        } finally {
+            if (deadlineTimer != null) {
+                deadlineTimer.shutdownNow();
+            }
+        }
+
+        if (watch && apply == null && cancelReason == null) {
+            watch();
+        }
+
+        return exitCode.get();
+    }
+
+    /**
+     * Generate the specs, or the plan given to --apply
+     */
+    private void run(AtomicInteger exitCode) throws InterruptedException, IOException {
+        IntFunction<List<GenerationEntity>> layers;
+        if (apply != null) {
+            GenerationPlan generationPlan = GenerationPlan.load(apply);
+            if (!instance.equals(generationPlan.getInstance())) {
+                throw new IllegalArgumentException(
+                        "The plan was made for instance " + generationPlan.getInstance());
+            }
+
+            Map<Integer, List<GenerationEntity>> entries = generationPlan.getEntries().stream()
+                    .collect(Collectors.groupingBy(GenerationPlan.Entry::getLayer,
+                            Collectors.mapping(e -> (GenerationEntity) e, Collectors.toList())));
+            layers = i -> entries.getOrDefault(i, List.of());
+        } else {
+            prepareSpecs();
+            NavigableMap<Integer, List<File>> specs = findSpecs();
+            compileSpecs(specs);
+            layers = i -> evaluate(specs.getOrDefault(i, List.of()), exitCode);
+        }
+
+        // Filtered runs don't see all the entities of the specs, so they can't tell which are gone
+        boolean complete = apply == null && filter.equals(DEFAULT_FILTER) && excludes.isEmpty();
+        generate(layers, full, resume, complete, exitCode);
+    }
+
+    /**
+     * Set up what evaluating the specs needs. Applying a plan doesn't evaluate any, so it doesn't
+     * compile scripts or load the cached spec output.
+     */
+    private void prepareSpecs() {
+        specProcessor = new SpecProcessor(new File(cacheDir, "scripts"), compileStatic);
+        if (classes != null) {
+            if (watch) {
+                throw new IllegalArgumentException("--watch needs the specs, not --classes");
+            }
+            specClasses = new SpecClasses(classes);
+        }
+        if (cacheSpecOutput) {
+            specOutputCache = SpecOutputCache.load(new File(cacheDir, "spec-output.json"));
+        }
+    }
+
+    /**
+     * Generate the entities layer by layer
+     *
+     * @param force
+     *         generate the entities unchanged since the last run too
+     * @param complete
+     *         whether the layers hold the entities of all the specs
+     */
+    private void generate(IntFunction<List<GenerationEntity>> layers, boolean force,
+            boolean resume, boolean complete, AtomicInteger exitCode)
+            throws InterruptedException, IOException {
+        notEvaluated.clear();
+        RunReport runReport = report != null ? RunReport.start() : null;
+        ForkJoinPool pool = GenerationContext.getInstance().getThreadPool();
+        VirtualThreadExecutor virtualThreadExecutor = null;
+        Executor generationExecutor = pool;
+        if (virtualThreads) {
+            virtualThreadExecutor = new VirtualThreadExecutor(maxConcurrency);
+            generationExecutor = virtualThreadExecutor;
+        }
+
+        GenerationCostEstimator costEstimator = GenerationCostEstimator.load(costHistory);
+        GenerationManifest manifest = GenerationManifest
+                .load(new File(cacheDir, "manifest.json"), instance, getSpecsPath());
+        GenerationJournal journal = GenerationJournal
+                .open(new File(cacheDir, "journal.jsonl"), instance, resume);
+        // Spec evaluation is CPU bound and always stays on the pool
+        Map<GenerationEntity, GenerationContext> contexts = Collections
+                .synchronizedMap(new IdentityHashMap<>());
+        GenerationScheduler scheduler = new GenerationScheduler(
+                new GenerationGraph(strictOrdering, costEstimator::estimate), generationExecutor,
+                virtualThreads ? maxConcurrency : pool.getParallelism(),
+                o -> generate(o, contexts.get(o), force, costEstimator, manifest, journal,
+                        exitCode));
+        activeScheduler = scheduler;
+        if (cancelReason != null) {
+            scheduler.cancel();
+        }
+
+        // Evaluating a layer only waits for the evaluation of the previous one, so the specs of
+        // the next layers are compiled and run while the entities of the earlier ones are
+        // generated. The entities of a layer are scheduled and generated with the context as
+        // their layer left it, so the defaults set by the next layers don't change them midway.
+        for (int i = 0; i <= MAX_ORDER; i++) {
+            List<GenerationEntity> entities = layers.apply(i);
+            if (!entities.isEmpty()) {
+                GenerationContext context = GenerationContext.getInstance().snapshot();
+                entities.forEach(e -> contexts.put(e, context));
+                GenerationContext previous = GenerationContext.bind(context);
+                try {
+                    RunReport.addLayer(i, entities);
+                    scheduler.addLayer(i, entities);
+                } finally {
+                    GenerationContext.bind(previous);
+                }
+            }
+        }
+        scheduler.awaitCompletion();
+        activeScheduler = null;
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.close();
+        }
+        if (cancelReason != null) {
+            exitCode.set(1);
+            journal.closeIncomplete();
+            reportCancelled(scheduler.getSkipped());
+        } else {
+            journal.close();
+        }
+        costEstimator.save();
+        manifest.save(complete && cancelReason == null);
+        saveSpecOutputCache();
+        IdCache.saveSnapshot(new File(cacheDir, "inventory.json"), instance);
+        if (runReport != null) {
+            runReport.save(report);
+        }
+        BoundedCache.getCaches().forEach(c -> log.info("Cache statistics " + c.getStatistics()));
+        NoOpDetector.getNoOps().forEach((type, count) -> log.info(
+                String.format("Skipped %s writes of unchanged %s documents", count, type)));
+    }
+
+    /**
+     * Regenerate the changed specs until interrupted. The client, the caches and the compiled
+     * specs are kept, so a change is pushed in about the time its entities take to generate. The
+     * classes of the specs are released after every change, so the outdated ones are unloaded.
+     * <p>
+     * Only the changed specs are evaluated, so the context holds the defaults set by all specs
+     * rather than by the ones with a lower prefix. Entities of the specs depending on the changed
+     * ones are evaluated again, as generating entities modifies them.
+     */
+    private void watch() throws IOException, InterruptedException {
+        try (SpecWatcher watcher = new SpecWatcher(path, newSpecFinder()::isSpec)) {
+            while (true) {
+                log.info("Watching " + path + " for changes");
+                Set<File> changed = watcher.awaitChanges();
+                List<List<GenerationEntity>> layers = new ArrayList<>();
+                for (int i = 0; i <= MAX_ORDER; i++) {
+                    layers.add(new ArrayList<>());
+                }
+
+                cancelReason = null;
+                specProcessor.releaseClasses();
+                AtomicInteger exitCode = new AtomicInteger(0);
+                Set<File> affected = new LinkedHashSet<>();
+                Set<EntityReference> provided = new HashSet<>();
+                for (File f : changed) {
+                    SpecReferences previous = specReferences.remove(f);
+                    if (previous != null) {
+                        provided.addAll(previous.provided);
                     }
 
-                    log.info("Nothing to generate for " + f);
-                    return Stream.empty();
-                }).forEach(o -> {
-                    try {
-                        log.info("Generating: " + o);
-                        o.generate();
-                    } catch (Exception e) {
-                        log.error("Failed to generate object: " + o, e);
-                        exitCode.set(1);
+                    if (f.isFile()) {
+                        affected.add(f);
+                        List<GenerationEntity> entities = evaluate(f, exitCode)
+                                .collect(Collectors.toList());
+                        layers.get(SpecFinder.getOrder(f)).addAll(entities);
+                        entities.forEach(e -> provided.addAll(e.providedReferences()));
+                    } else {
+                        log.info("Deleted " + f + ", its entities are kept on the server");
                     }
-                }))
-        );
-        task.join();
+                }
+
+                for (File f : findDependents(affected, provided)) {
+                    layers.get(SpecFinder.getOrder(f)).addAll(evaluate(f, exitCode)
+                            .collect(Collectors.toList()));
+                }
+
+                generate(layers::get, true, false, false, exitCode);
+                log.info(exitCode.get() == 0 ? "Generated the changes"
+                        : "Failed to generate some of the changes");
+            }
+        }
+    }
+
+    private void saveSpecOutputCache() {
+        if (specOutputCache != null) {
+            specOutputCache.save();
+            log.info("Took the entities of {} unchanged specs from the cache",
+                    specOutputCache.getHits());
+        }
+    }
+
+    private void fail(AtomicInteger exitCode, String reason) {
+        exitCode.set(1);
+        if (failFast) {
+            cancel(reason);
+        }
+    }
+
+    /**
+     * Stop evaluating specs and starting entities, and interrupt the entities being generated
+     */
+    private void cancel(String reason) {
+        synchronized (this) {
+            if (cancelReason != null) {
+                return;
+            }
+            cancelReason = reason;
+        }
+
+        log.error("Stopping the run as {}", reason);
+        GenerationScheduler scheduler = activeScheduler;
+        if (scheduler != null) {
+            scheduler.cancel();
+        }
+    }
+
+    private void reportCancelled(List<GenerationEntity> skipped) {
+        log.error("The run was stopped as {}. {} specs weren't evaluated and {} entities weren't "
+                + "generated", cancelReason, notEvaluated.size(), skipped.size());
+        notEvaluated.forEach(f -> log.info("Not evaluated: {}", f));
+        skipped.forEach(e -> log.info("Not generated: {}", e.describe()));
+    }
+
+    /**
+     * @return the specs with entities depending on the given references, or on the references
+     * provided by those specs
+     */
+    private Set<File> findDependents(Set<File> exclude, Set<EntityReference> provided) {
+        Set<File> result = new LinkedHashSet<>();
+        Set<EntityReference> references = new HashSet<>(provided);
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (Map.Entry<File, SpecReferences> spec : specReferences.entrySet()) {
+                if (!exclude.contains(spec.getKey()) && !result.contains(spec.getKey())
+                        && spec.getValue().required.stream().anyMatch(references::contains)) {
+                    result.add(spec.getKey());
+                    references.addAll(spec.getValue().provided);
+                    found = true;
+                }
+            }
+        }
 
+        return result;
+    }
+
+    /**
+     * Evaluate the specs and record what generating them would write, in spec order so the plan
+     * is the same for the same specs and inventory
+     */
+    private int plan(File inventory) throws IOException {
+        GenerationContext.getInstance().getEndpointConfiguration().setClient(Client.offline());
+        IdCache.setOffline(true);
+        IdCache.loadSnapshot(inventory, instance);
+
+        AtomicInteger exitCode = new AtomicInteger(0);
+        GenerationPlan generationPlan = new GenerationPlan();
+        generationPlan.setInstance(instance);
+        NavigableMap<Integer, List<File>> specs = findSpecs();
+        compileSpecs(specs);
+        for (Map.Entry<Integer, List<File>> layer : specs.entrySet()) {
+            for (GenerationEntity entity : evaluate(layer.getValue(), exitCode)) {
+                try {
+                    log.info("Planning: {}", entity.describe());
+                    log.debug("Planning: {}", entity);
+                    generationPlan.plan(layer.getKey(), entity);
+                } catch (Exception e) {
+                    log.error("Failed to plan object, it has to be generated online: {}",
+                            entity.describe(), e);
+                    exitCode.set(1);
+                }
+            }
+        }
+
+        generationPlan.save(plan);
+        saveSpecOutputCache();
+        log.info(String.format("Planned %s entities to %s", generationPlan.getEntries().size(),
+                plan));
         return exitCode.get();
     }
 
+    private List<GenerationEntity> evaluate(List<File> layer, AtomicInteger exitCode) {
+        if (layer.isEmpty()) {
+            return List.of();
+        }
+
+        return GenerationContext.getInstance().getThreadPool().submit(() -> layer.parallelStream()
+                .flatMap(f -> evaluate(f, exitCode))
+                .collect(Collectors.toList())).join();
+    }
+
+    private Stream<GenerationEntity> evaluate(File f, AtomicInteger exitCode) {
+        if (cancelReason != null) {
+            notEvaluated.add(f);
+            return Stream.empty();
+        }
+
+        log.info("Processing " + f);
+        RunReport.Row row = RunReport.startSpec(f, SpecFinder.getOrder(f));
+        // The specs change the context of the run, even when evaluated by a thread which is
+        // generating an entity
+        GenerationContext previous = GenerationContext.bind(null);
+        try {
+            Object o;
+            if (specClasses != null) {
+                o = specProcessor.run(specClasses.load(f));
+            } else {
+                String content = IOUtils.toString(new FileInputStream(f), StandardCharsets.UTF_8);
+                o = specOutputCache != null ? specOutputCache.process(content, specProcessor)
+                        : specProcessor.process(content);
+            }
+            List<GenerationEntity> entities = null;
+            if (o instanceof List) {
+                entities = (List<GenerationEntity>) o;
+            } else if (o instanceof GenerationEntity) {
+                entities = List.of((GenerationEntity) o);
+            }
+
+            if (entities != null) {
+                if (watch) {
+                    specReferences.put(f, new SpecReferences(entities));
+                }
+                RunReport.finish(row, "evaluated");
+                return entities.stream();
+            }
+        } catch (Exception e) {
+            RunReport.finish(row, "failed");
+            log.error("Failed to process file: " + f, e);
+            fail(exitCode, "processing " + f + " failed");
+            return Stream.empty();
+        } finally {
+            GenerationContext.bind(previous);
+        }
+
+        RunReport.finish(row, "empty");
+        log.info("Nothing to generate for " + f);
+        return Stream.empty();
+    }
+
+    private void generate(GenerationEntity o, GenerationContext context, boolean force,
+            GenerationCostEstimator costEstimator, GenerationManifest manifest,
+            GenerationJournal journal, AtomicInteger exitCode) {
+        GenerationContext previous = GenerationContext.bind(context);
+        try {
+            generate(o, force, costEstimator, manifest, journal, exitCode);
+        } finally {
+            GenerationContext.bind(previous);
+        }
+    }
+
+    private void generate(GenerationEntity o, boolean force, GenerationCostEstimator costEstimator,
+            GenerationManifest manifest, GenerationJournal journal, AtomicInteger exitCode) {
+        RunReport.Row row = RunReport.startEntity(o);
+        String fingerprint = manifest.fingerprint(o);
+        if (journal.isCompleted(o, fingerprint)) {
+            log.info("Generated before the run was interrupted, skipping: {}", o.describe());
+            manifest.record(fingerprint, o);
+            RunReport.finish(row, "resumed");
+            return;
+        }
+
+        if (!force && manifest.isUnchanged(fingerprint)) {
+            log.info("Unchanged since the last run, skipping: {}", o.describe());
+            RunReport.finish(row, "unchanged");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            log.info("Generating: {}", o.describe());
+            log.debug("Generating: {}", o);
+            o.generate();
+            costEstimator.record(o, System.currentTimeMillis() - start);
+            manifest.record(fingerprint, o);
+            journal.record(o, fingerprint);
+            RunReport.finish(row, "generated");
+        } catch (Exception e) {
+            RunReport.finish(row, "failed");
+            manifest.recordFailure(o);
+            if (cancelReason != null && e instanceof InterruptedException) {
+                log.error("Interrupted by the cancellation of the run: {}", o.describe());
+            } else {
+                log.error("Failed to generate object: {}", o.describe(), e);
+            }
+            fail(exitCode, "generating " + o.describe() + " failed");
+        }
+    }
+
     public static void main(String... args) {
         int exitCode = new CommandLine(new Generate()).execute(args);
         System.exit(exitCode);
     }
 
-    public List<List<File>> findSpecs(File root, List<List<File>> result) {
-        if (result == null) {
-            result = new ArrayList<>();
+    public NavigableMap<Integer, List<File>> findSpecs() {
+        if (specClasses != null) {
+            return specClasses.find();
+        }
 
-            for (int i = 0; i <= MAX_ORDER; i++) {
-                result.add(new ArrayList<>());
-            }
+        long start = System.currentTimeMillis();
+        SpecFinder specFinder = newSpecFinder();
+        File cacheFile = new File(cacheDir, "specs.json");
+        if (cacheDiscovery) {
+            specFinder.loadCache(cacheFile);
         }
 
-        if (root == null) {
-            return result;
+        NavigableMap<Integer, List<File>> specs = specFinder
+                .find(GenerationContext.getInstance().getThreadPool());
+        if (cacheDiscovery) {
+            specFinder.saveCache(cacheFile);
         }
+        log.info(String.format("Found %s specs in %sms",
+                specs.values().stream().mapToInt(List::size).sum(),
+                System.currentTimeMillis() - start));
+        return specs;
+    }
 
-        if (root.isFile() && root.getPath().matches(filter)) {
-            Matcher matcher = ORDER_PATTERN.matcher(root.getName());
-            int index = 500;
-            if (matcher.find()) {
-                index = Integer.parseInt(matcher.group());
-            }
+    /**
+     * Compile the specs at once before evaluating them one by one. Specs failing to be read are
+     * left to fail when evaluated. The cached classes of any other specs are dropped.
+     */
+    private void compileSpecs(NavigableMap<Integer, List<File>> specs) {
+        if (specClasses != null) {
+            return;
+        }
 
-            result.get(index).add(root);
-        } else if (root.isDirectory()) {
-            File[] files = root.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    findSpecs(f, result);
+        long start = System.currentTimeMillis();
+        List<String> contents = new ArrayList<>();
+        for (List<File> layer : specs.values()) {
+            for (File f : layer) {
+                try {
+                    contents.add(FileUtils.readFileToString(f, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    log.debug("Failed to read " + f, e);
                 }
             }
         }
+        specProcessor.compileAll(contents);
+        specProcessor.pruneCache();
+        log.info(String.format("Compiled the specs in %sms", System.currentTimeMillis() - start));
+    }
 
-        return result;
+    private SpecFinder newSpecFinder() {
+        return new SpecFinder(path, filter, excludes);
+    }
+
+    /**
+     * @return the path of the specs, keying their entities in the manifest
+     */
+    private String getSpecsPath() {
+        return (classes != null ? classes : path).getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private static class SpecReferences {
+        private final Set<EntityReference> provided = new HashSet<>();
+        private final Set<EntityReference> required = new HashSet<>();
+
+        private SpecReferences(List<GenerationEntity> entities) {
+            for (GenerationEntity entity : entities) {
+                provided.addAll(entity.providedReferences());
+                required.addAll(entity.requiredReferences());
+            }
+        }
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * A generate or reverse generate run, e.g. submitted to the {@link Server}. The refresh token is
+ * referenced rather than passed, so it doesn't travel with the job.
+ */
+@Data
+public class Job {
+    public static final String GENERATE = "generate";
+    public static final String REVERSE_GENERATE = "reverseGenerate";
+
+    /**
+     * Name used when reporting the job
+     */
+    private String name;
+
+    private String command = GENERATE;
+    private String instance;
+    private String loginInstance;
+
+    /**
+     * "env:NAME" for a refresh token in an environment variable or "file:PATH" for one in a file
+     */
+    private String credentials;
+
+    /**
+     * Any other options of the command, like --path
+     */
+    private List<String> args = new ArrayList<>();
+
+    public String resolveRefreshToken() throws IOException {
+        if (credentials == null) {
+            return null;
+        }
+
+        if (credentials.startsWith("env:")) {
+            String token = System.getenv(credentials.substring("env:".length()));
+            if (token == null) {
+                throw new IllegalArgumentException("Environment variable not set: "
+                        + credentials.substring("env:".length()));
+            }
+            return token;
+        } else if (credentials.startsWith("file:")) {
+            return FileUtils.readFileToString(new File(credentials.substring("file:".length())),
+                    StandardCharsets.UTF_8).trim();
+        }
+
+        throw new IllegalArgumentException("Unsupported credentials reference " + credentials
+                + ", expected env:NAME or file:PATH");
+    }
+
+    /**
+     * @return the command line of the job
+     */
+    public String[] toArguments(String refreshToken) {
+        List<String> result = new ArrayList<>(args);
+        if (instance != null) {
+            result.add("--instance");
+            result.add(instance);
+        }
+        if (loginInstance != null) {
+            result.add("--login-instance");
+            result.add(loginInstance);
+        }
+        if (refreshToken != null) {
+            result.add("--refresh-token");
+            result.add(refreshToken);
+        }
+
+        return result.toArray(new String[0]);
+    }
+}
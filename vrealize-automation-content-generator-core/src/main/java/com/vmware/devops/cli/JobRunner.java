@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import picocli.CommandLine;
+
+import com.vmware.devops.BoundedCache;
+import com.vmware.devops.GenerationContext;
+import com.vmware.devops.IdCache;
+import com.vmware.devops.ReverseGenerationContext;
+import com.vmware.devops.Utils;
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
+
+/**
+ * Runs {@link Job}s one after the other in the same process. The log of a job is streamed through
+ * a log4j appender, the backend of slf4j declared by this module. Clients logged in with a refresh
+ * token are kept for "server.clientExpireAfterSeconds", while their access token is valid.
+ * <p>
+ * The contexts and caches are reset between jobs, as they are process wide: the {@link IdCache}s
+ * key the ids by name only, the models read the contexts from the threads of parallel streams,
+ * which no job owns, and the appender listens to the root logger. Jobs have to run in separate
+ * processes to run concurrently.
+ */
+public class JobRunner {
+    private static final String LOG_PATTERN = "%d{yyyy-MM-dd HH:mm:ss} %-5p %c{1} - %m%n";
+    private static final long CLIENT_EXPIRE_AFTER_SECONDS = Long
+            .getLong("server.clientExpireAfterSeconds", 1200);
+
+    private final BoundedCache<String, Client> clients = new BoundedCache<>("JobClients",
+            BoundedCache.DEFAULT_MAX_SIZE, CLIENT_EXPIRE_AFTER_SECONDS, TimeUnit.SECONDS);
+
+    /**
+     * @param output
+     *         receives the log of the job besides the usual appenders, may be null
+     * @return the exit status of the job
+     */
+    public int run(Job job, PrintWriter output)
+            throws IOException, InterruptedException, URISyntaxException {
+        if (job.getArgs().contains("--watch")) {
+            throw new IllegalArgumentException("Watching is not supported for jobs");
+        }
+
+        synchronized (this) {
+            WriterAppender appender = null;
+            if (output != null) {
+                appender = new WriterAppender(new PatternLayout(LOG_PATTERN), output);
+                Logger.getRootLogger().addAppender(appender);
+            }
+            try {
+                resetContexts();
+                String refreshToken = job.resolveRefreshToken();
+                Client client = getClient(job, refreshToken);
+                if (client != null) {
+                    GenerationContext.getInstance().getEndpointConfiguration().setClient(client);
+                    ReverseGenerationContext.getInstance().getEndpointConfiguration()
+                            .setClient(client);
+                }
+
+                CommandLine commandLine = new CommandLine(newCommand(job.getCommand()));
+                if (output != null) {
+                    commandLine.setOut(output).setErr(output);
+                }
+                return commandLine.execute(job.toArguments(refreshToken));
+            } finally {
+                if (appender != null) {
+                    Logger.getRootLogger().removeAppender(appender);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the command running a job. Overridden to support additional entities, like the
+     * subclasses of {@link ReverseGenerate}.
+     */
+    protected Callable<Integer> newCommand(String name) {
+        switch (name) {
+        case Job.GENERATE:
+            return new Generate();
+        case Job.REVERSE_GENERATE:
+            return new ReverseGenerate();
+        default:
+            throw new IllegalArgumentException("Unknown command " + name);
+        }
+    }
+
+    private void resetContexts() {
+        GenerationContext.getInstance().getThreadPool().shutdown();
+        GenerationContext.reset();
+        ReverseGenerationContext.reset();
+        IdCache.setOffline(false);
+        NoOpDetector.reset();
+        Utils.clearResources();
+        BoundedCache.getCaches().forEach(BoundedCache::clear);
+    }
+
+    /**
+     * @return the client logged in to the instance of the job, or null to let the command log in
+     */
+    private Client getClient(Job job, String refreshToken)
+            throws InterruptedException, IOException, URISyntaxException {
+        if (job.getInstance() == null || job.getLoginInstance() == null || refreshToken == null) {
+            return null;
+        }
+
+        String key = Utils.sha256((job.getLoginInstance() + "\n" + job.getInstance() + "\n"
+                + refreshToken).getBytes(StandardCharsets.UTF_8));
+        Client client = clients.get(key);
+        if (client == null) {
+            client = new Client(job.getLoginInstance(), job.getInstance(), refreshToken);
+            clients.put(key, client);
+        }
+
+        return client;
+    }
+}
@@ -18,6 +18,7 @@ import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import com.vmware.devops.BoundedCache;
 import com.vmware.devops.ReverseGenerationContext;
 import com.vmware.devops.config.EndpointConfiguration.AuthenticationDetails;
 import com.vmware.devops.model.ReverseGenerationEntity;
@@ -135,6 +136,7 @@ public class ReverseGenerate implements Callable<Integer> {
                 log.error("Error while reverse generating model class " + c, e);
             }
         }
+        BoundedCache.getCaches().forEach(c -> log.info("Cache statistics " + c.getStatistics()));
 
         return exitCode;
     }
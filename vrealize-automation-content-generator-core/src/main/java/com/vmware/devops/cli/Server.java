@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import com.vmware.devops.SerializationUtils;
+import com.vmware.devops.Utils;
+
+/**
+ * Runs generate and reverse generate jobs in a long-lived process, so they don't pay for starting
+ * a JVM, loading the libraries and logging in every time.
+ * <p>
+ * A connection sends the token of the server as a first line, then submits a single {@link Job}
+ * as a line of JSON and receives the log of the job, followed by a last line "EXIT status". Jobs
+ * are run one at a time by a {@link JobRunner}.
+ * <p>
+ * Other local users can connect too, so the token is kept in a file only the owner of the server
+ * can read. Jobs may only use the credentials and login instances the server allows, so a job
+ * can't send a refresh token of the server to a login instance of its choice.
+ */
+@Command(name = "server", mixinStandardHelpOptions = true,
+        description = "Run generate and reverse generate jobs submitted on a local port.")
+@Slf4j
+public class Server implements Callable<Integer> {
+    public static final String EXIT_PREFIX = "EXIT ";
+
+    @Option(names = { "--port" },
+            description = "Port to listen on. Only connections from the local host are accepted",
+            defaultValue = "8642"
+    )
+    private int port;
+
+    @Option(names = { "--token-file" }, paramLabel = "FILE",
+            description = "File holding the token connections have to send first. It has to be "
+                    + "readable only by its owner and is created with a random token if missing",
+            required = true
+    )
+    private File tokenFile;
+
+    @Option(names = { "--allow-credentials" }, paramLabel = "REFERENCE",
+            description = "Credentials jobs may use, e.g. env:PRODUCTION_TOKEN. Can be repeated"
+    )
+    private List<String> allowedCredentials = new ArrayList<>();
+
+    @Option(names = { "--allow-login-instance" }, paramLabel = "INSTANCE",
+            description = "Csp or VIDM instance jobs may set as their loginInstance, jobs "
+                    + "without one log in to the default instance. Can be repeated"
+    )
+    private List<String> allowedLoginInstances = new ArrayList<>();
+
+    private byte[] token;
+
+    private final JobRunner jobRunner;
+
+    public Server() {
+        this(new JobRunner());
+    }
+
+    public Server(JobRunner jobRunner) {
+        this.jobRunner = jobRunner;
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        token = readToken(tokenFile);
+        ExecutorService connections = Executors.newCachedThreadPool();
+        try (ServerSocket serverSocket = new ServerSocket(port, 50,
+                InetAddress.getLoopbackAddress())) {
+            log.info("Accepting jobs on " + serverSocket.getLocalSocketAddress());
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            }
+        } finally {
+            connections.shutdownNow();
+        }
+
+        return 0;
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter output = new PrintWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
+                    true);
+            String sentToken = reader.readLine();
+            if (sentToken == null || !MessageDigest.isEqual(token,
+                    sentToken.trim().getBytes(StandardCharsets.UTF_8))) {
+                log.warn("Rejected connection from " + socket.getRemoteSocketAddress()
+                        + " with a wrong token");
+                output.println("Wrong token");
+                output.println(EXIT_PREFIX + 1);
+                return;
+            }
+
+            String line = reader.readLine();
+            int status = 1;
+            if (line != null && !line.isBlank()) {
+                try {
+                    Job job = SerializationUtils.fromJson(line, new Job());
+                    authorize(job);
+                    status = jobRunner.run(job, output);
+                } catch (Exception e) {
+                    log.error("Failed to run job " + line, e);
+                    output.println("Failed to run job: " + e.getMessage());
+                }
+            }
+            output.println(EXIT_PREFIX + status);
+        } catch (IOException e) {
+            log.warn("Failed to serve connection", e);
+        }
+    }
+
+    /**
+     * @return the token of the file, after creating it with a random one if missing
+     */
+    static byte[] readToken(File tokenFile) throws IOException {
+        if (!tokenFile.exists()) {
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            Utils.writeOwnerOnlyFile(tokenFile,
+                    Base64.getUrlEncoder().withoutPadding().encode(random));
+            log.info("Wrote a new token to " + tokenFile);
+        }
+
+        if (!Utils.isOwnerOnly(tokenFile)) {
+            throw new IllegalStateException("The token file " + tokenFile
+                    + " has to be readable only by its owner");
+        }
+
+        String result = FileUtils.readFileToString(tokenFile, StandardCharsets.UTF_8).trim();
+        if (result.isEmpty()) {
+            throw new IllegalStateException("The token file " + tokenFile + " is empty");
+        }
+
+        return result.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reject the jobs using credentials or login instances the server doesn't allow, including
+     * through their args
+     */
+    void authorize(Job job) {
+        if (job.getCredentials() != null && !allowedCredentials.contains(job.getCredentials())) {
+            throw new IllegalArgumentException(
+                    "Credentials not allowed by the server: " + job.getCredentials());
+        }
+        if (job.getLoginInstance() != null
+                && !allowedLoginInstances.contains(job.getLoginInstance())) {
+            throw new IllegalArgumentException(
+                    "Login instance not allowed by the server: " + job.getLoginInstance());
+        }
+
+        CommandLine commandLine = new CommandLine(jobRunner.newCommand(job.getCommand()));
+        if (commandLine.parseArgs(job.getArgs().toArray(new String[0]))
+                .hasMatchedOption("--login-instance")) {
+            throw new IllegalArgumentException(
+                    "The login instance has to be set by the loginInstance of the job");
+        }
+    }
+
+    public static void main(String... args) {
+        int exitCode = new CommandLine(new Server()).execute(args);
+        System.exit(exitCode);
+    }
+}
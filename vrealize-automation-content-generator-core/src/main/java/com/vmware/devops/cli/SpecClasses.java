@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import groovy.lang.Script;
+
+/**
+ * The specs compiled ahead of time, e.g. by the groovyc task of the sample project, in a classes
+ * directory or a jar. Every top level script class is a spec, ordered by the NNN- prefix of its
+ * name like the source it was compiled from.
+ */
+public class SpecClasses {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final File classes;
+    private final ClassLoader classLoader;
+    private final Map<File, String> classNames = new HashMap<>();
+
+    public SpecClasses(File classes) {
+        if (!classes.exists()) {
+            throw new IllegalArgumentException("No compiled specs at " + classes);
+        }
+
+        this.classes = classes;
+        try {
+            classLoader = new URLClassLoader(new URL[] { classes.toURI().toURL() },
+                    Thread.currentThread().getContextClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @return the class files of the specs by NNN- prefix, sorted by name within a prefix. Class
+     * files in a jar are given as paths under the jar.
+     */
+    public NavigableMap<Integer, List<File>> find() {
+        List<String> entries;
+        try {
+            entries = classes.isDirectory() ? listDirectory() : listJar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        NavigableMap<Integer, List<File>> result = new TreeMap<>();
+        for (String entry : entries) {
+            String className = entry.substring(0, entry.length() - CLASS_SUFFIX.length())
+                    .replace('/', '.');
+            if (className.contains("$") || !isScript(className)) {
+                continue;
+            }
+
+            File file = new File(classes, entry);
+            classNames.put(file, className);
+            result.computeIfAbsent(SpecFinder.getOrder(file), i -> new ArrayList<>()).add(file);
+        }
+        result.values().forEach(Collections::sort);
+        return result;
+    }
+
+    /**
+     * @return the script class of a spec found by {@link #find()}
+     */
+    public Class<? extends Script> load(File spec) {
+        String className = classNames.get(spec);
+        if (className == null) {
+            throw new IllegalArgumentException("Not a compiled spec: " + spec);
+        }
+
+        try {
+            return classLoader.loadClass(className).asSubclass(Script.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isScript(String className) {
+        try {
+            // Not initialized, so nothing of the spec runs yet
+            return Script.class.isAssignableFrom(Class.forName(className, false, classLoader));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private List<String> listDirectory() throws IOException {
+        Path root = classes.toPath();
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(CLASS_SUFFIX))
+                    .map(p -> root.relativize(p).toString().replace(File.separatorChar, '/'))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<String> listJar() throws IOException {
+        try (JarFile jar = new JarFile(classes)) {
+            return jar.stream()
+                    .map(JarEntry::getName)
+                    .filter(n -> n.endsWith(CLASS_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import com.vmware.devops.SerializationUtils;
+import com.vmware.devops.Utils;
+
+/**
+ * Finds the specs under a path and groups them by their NNN- prefix. Directories are listed in
+ * parallel and excluded directories aren't entered at all.
+ * <p>
+ * With a cache file, the listing of every directory is kept along with its modification time and
+ * reused while the time is unchanged. Adding, removing or renaming an entry changes the time of
+ * its directory, so only the changed directories are listed again.
+ */
+@Slf4j
+public class SpecFinder {
+    public static final int DEFAULT_ORDER = 500;
+
+    private static final Pattern ORDER_PATTERN = Pattern.compile("^[0-9]{1,3}(?=-)");
+
+    /**
+     * Listings this close to the modification time of the directory may have missed a change made
+     * within the resolution of the time, so they aren't reused
+     */
+    private static final long RACY_MILLIS = 2000;
+
+    private final Path root;
+    private final Pattern filter;
+    private final List<PathMatcher> excludes;
+    private final String cacheKey;
+    private final Map<String, Listing> cached = new ConcurrentHashMap<>();
+    private final Map<String, Listing> listed = new ConcurrentHashMap<>();
+
+    /**
+     * @param filter
+     *         regex matching the paths of the specs
+     * @param excludes
+     *         globs matching the paths relative to root, or the names, of skipped files and
+     *         directories
+     */
+    public SpecFinder(File root, String filter, List<String> excludes) {
+        this.root = root.toPath();
+        this.filter = Pattern.compile(filter);
+        this.excludes = excludes.stream()
+                .map(e -> FileSystems.getDefault().getPathMatcher("glob:" + e))
+                .collect(Collectors.toList());
+        this.cacheKey = Utils.sha256((root.getPath() + "\n" + filter + "\n"
+                + String.join("\n", excludes)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int getOrder(File spec) {
+        Matcher matcher = ORDER_PATTERN.matcher(spec.getName());
+        if (matcher.find()) {
+            return Integer.parseInt(matcher.group());
+        }
+
+        return DEFAULT_ORDER;
+    }
+
+    public boolean isSpec(File file) {
+        return filter.matcher(file.getPath()).matches() && !isExcluded(file.toPath());
+    }
+
+    /**
+     * @return the specs by NNN- prefix, sorted by path within a prefix
+     */
+    public NavigableMap<Integer, List<File>> find(ForkJoinPool pool) {
+        List<Path> specs;
+        if (Files.isDirectory(root)) {
+            try {
+                specs = pool.invoke(new ListingTask(root));
+            } catch (UncheckedIOException e) {
+                throw new IllegalStateException("Failed to find the specs in " + root,
+                        e.getCause());
+            }
+        } else if (Files.isRegularFile(root) && filter.matcher(root.toString()).matches()) {
+            specs = List.of(root);
+        } else {
+            specs = List.of();
+        }
+
+        NavigableMap<Integer, List<File>> result = new TreeMap<>();
+        specs.stream().map(Path::toFile).sorted(Comparator.comparing(File::getPath))
+                .forEach(f -> result.computeIfAbsent(getOrder(f), i -> new ArrayList<>()).add(f));
+        return result;
+    }
+
+    /**
+     * Reuse the listings of a previous search with the same root, filter and excludes
+     */
+    public void loadCache(File cacheFile) {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+
+        try {
+            Cache cache = SerializationUtils.fromJson(
+                    FileUtils.readFileToString(cacheFile, StandardCharsets.UTF_8), new Cache());
+            if (cacheKey.equals(cache.key)) {
+                cached.putAll(cache.listings);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read spec cache " + cacheFile, e);
+        }
+    }
+
+    public void saveCache(File cacheFile) {
+        Cache cache = new Cache();
+        cache.key = cacheKey;
+        cache.listings.putAll(listed);
+        try {
+            FileUtils.writeStringToFile(cacheFile, SerializationUtils.toJson(cache),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to write spec cache " + cacheFile, e);
+        }
+    }
+
+    private boolean isExcluded(Path path) {
+        if (excludes.isEmpty()) {
+            return false;
+        }
+
+        Path relative = path.startsWith(root) ? root.relativize(path) : path;
+        Path name = path.getFileName();
+        return excludes.stream()
+                .anyMatch(e -> e.matches(relative) || (name != null && e.matches(name)));
+    }
+
+    private Listing list(Path directory) throws IOException {
+        String key = directory.toString();
+        long lastModified = Files.getLastModifiedTime(directory).toMillis();
+        Listing listing = cached.get(key);
+        if (listing == null || listing.lastModified != lastModified
+                || listing.listedAt - lastModified < RACY_MILLIS) {
+            listing = new Listing();
+            listing.lastModified = lastModified;
+            listing.listedAt = System.currentTimeMillis();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (isExcluded(entry)) {
+                        continue;
+                    }
+
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        // A dangling symbolic link or an entry deleted since it was listed
+                        log.debug("Skipping missing entry {}", entry);
+                        continue;
+                    }
+
+                    if (attributes.isDirectory()) {
+                        listing.directories.add(entry.getFileName().toString());
+                    } else if (attributes.isRegularFile()
+                            && filter.matcher(entry.toString()).matches()) {
+                        listing.specs.add(entry.getFileName().toString());
+                    }
+                }
+            }
+        }
+
+        listed.put(key, listing);
+        return listing;
+    }
+
+    private class ListingTask extends RecursiveTask<List<Path>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+
+        private ListingTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            Listing listing;
+            try {
+                listing = list(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<ListingTask> subdirectories = listing.directories.stream()
+                    .map(d -> new ListingTask(directory.resolve(d)))
+                    .collect(Collectors.toList());
+            ForkJoinTask.invokeAll(subdirectories);
+
+            List<Path> result = listing.specs.stream().map(directory::resolve)
+                    .collect(Collectors.toList());
+            subdirectories.forEach(t -> result.addAll(t.join()));
+            return result;
+        }
+    }
+
+    @Data
+    public static class Listing {
+        private long lastModified;
+        private long listedAt;
+        private List<String> directories = new ArrayList<>();
+        private List<String> specs = new ArrayList<>();
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Hash of the root, the filter and the excludes the listings were made for
+         */
+        private String key;
+        private Map<String, Listing> listings = new TreeMap<>();
+    }
+}
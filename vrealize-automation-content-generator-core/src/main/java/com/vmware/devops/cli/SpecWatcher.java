@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches the specs for changes. Editors often write a file in several steps, so changes are
+ * collected until none happened for the "watch.quietPeriodMillis" system property.
+ */
+@Slf4j
+public class SpecWatcher implements AutoCloseable {
+    private static final long QUIET_PERIOD_MILLIS = Long.getLong("watch.quietPeriodMillis", 300);
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Predicate<File> filter;
+
+    /**
+     * @param root
+     *         spec file or directory containing the specs
+     * @param filter
+     *         which of the changed files are specs
+     */
+    public SpecWatcher(File root, Predicate<File> filter) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        if (root.isDirectory()) {
+            this.filter = filter;
+            registerAll(root.toPath());
+        } else {
+            Path file = root.getAbsoluteFile().toPath();
+            this.filter = filter.and(f -> f.getAbsoluteFile().toPath().equals(file));
+            register(file.getParent());
+        }
+    }
+
+    /**
+     * Block until specs are created, modified or deleted
+     *
+     * @return the changed spec files
+     */
+    public Set<File> awaitChanges() throws InterruptedException, IOException {
+        Set<File> changed = new LinkedHashSet<>();
+        while (changed.isEmpty()) {
+            WatchKey key = watchService.take();
+            while (key != null) {
+                collect(key, changed);
+                key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collect(WatchKey key, Set<File> changed) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                log.warn("Missed file system events, restart to regenerate everything");
+                continue;
+            }
+
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path)) {
+                registerAll(path);
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.map(Path::toFile).filter(filter).forEach(changed::add);
+                }
+            } else if (filter.test(path.toFile())) {
+                changed.add(path.toFile());
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void registerAll(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, directory);
+    }
+}
@@ -34,6 +34,7 @@ import com.vmware.devops.client.servicebroker.ServiceBrokerClient;
 public class Client {
     public static final HttpClient HTTP_CLIENT = initializeHttpClient();
 
+    private static final String OFFLINE_INSTANCE = "offline://instance";
     private static final String LOGIN_ENDPOINT = "/csp/gateway/am/api/login?access_token";
     private static final String AUTHORIZE_ENDPOINT = "csp/gateway/am/api/auth/api-tokens/authorize";
 
@@ -58,6 +59,20 @@ public class Client {
     private String accessToken;
     private long accessTokenExpirationTime;
 
+    private Client() {
+    }
+
+    /**
+     * Client for planning without network access. Writes are recorded by the {@link
+     * com.vmware.devops.GenerationPlan} being made and any request fails, as the "offline" URL
+     * scheme is not supported.
+     */
+    public static Client offline() {
+        Client client = new Client();
+        client.initializeClients(OFFLINE_INSTANCE, null);
+        return client;
+    }
+
     public Client(String loginInstance, String instance, String refreshToken)
             throws IOException, InterruptedException, URISyntaxException {
         this.refreshToken = refreshToken;
@@ -163,10 +178,10 @@ public class Client {
             SSLContext sslContext = SSLContext.getInstance("TLS");
             sslContext.init(null, Utils.trustAllCertsTrustManager(), new SecureRandom());
 
-            return HttpClient.newBuilder()
+            return new ReportingHttpClient(HttpClient.newBuilder()
                     .version(HttpClient.Version.HTTP_1_1)
                     .sslContext(sslContext)
-                    .build();
+                    .build());
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.client;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.vmware.devops.SerializationUtils;
+
+/**
+ * Detects updates which wouldn't change anything on the server, so the write can be skipped.
+ * <p>
+ * The stub about to be sent is compared with the existing document read into the same stub type,
+ * so fields the stubs don't model are ignored. Other fields set on only one side make the
+ * documents differ, unless the caller ignores them, so fields the server doesn't return, like
+ * secrets, are always written. Setting the "noop.detection.disabled" system property turns the
+ * detection off.
+ */
+public class NoOpDetector {
+    public static final boolean ENABLED = !Boolean.getBoolean("noop.detection.disabled");
+
+    private static final Map<String, AtomicLong> NO_OPS = new ConcurrentHashMap<>();
+
+    private NoOpDetector() {
+    }
+
+    /**
+     * @param type
+     *         name the no-ops are counted under
+     * @param ignoredFields
+     *         top level fields set only by the client or only by the server
+     * @return true if writing desired wouldn't change existing
+     */
+    public static boolean isNoOp(String type, Object desired, Object existing,
+            String... ignoredFields) {
+        if (!ENABLED || existing == null) {
+            return false;
+        }
+
+        if (!canonical(desired, ignoredFields).equals(canonical(existing, ignoredFields))) {
+            return false;
+        }
+
+        NO_OPS.computeIfAbsent(type, t -> new AtomicLong()).incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Forget the counts of the previous runs
+     */
+    public static void reset() {
+        NO_OPS.clear();
+    }
+
+    /**
+     * Number of skipped writes by type
+     */
+    public static Map<String, Long> getNoOps() {
+        Map<String, Long> result = new TreeMap<>();
+        NO_OPS.forEach((type, count) -> result.put(type, count.get()));
+        return result;
+    }
+
+    private static JsonNode canonical(Object stub, String... ignoredFields) {
+        JsonNode node = SerializationUtils.getJsonMapper().valueToTree(stub);
+        if (node instanceof ObjectNode) {
+            for (String field : ignoredFields) {
+                ((ObjectNode) node).remove(field);
+            }
+        }
+
+        return node;
+    }
+}
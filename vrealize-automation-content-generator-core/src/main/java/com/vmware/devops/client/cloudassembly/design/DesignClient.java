@@ -18,9 +18,11 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import com.vmware.devops.GenerationPlan;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.Utils;
 import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
 import com.vmware.devops.client.cloudassembly.design.stubs.Blueprint;
 
 public class DesignClient {
@@ -189,9 +191,17 @@ public class DesignClient {
 
     public Blueprint createOrUpdateBlueprint(Blueprint blueprint)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.BLUEPRINT, blueprint);
+        }
+
         Blueprint existing = findBlueprintByName(blueprint.getName());
         if (existing != null) {
             blueprint.setId(existing.getId());
+            if (NoOpDetector.isNoOp("blueprint", blueprint, existing)) {
+                return existing;
+            }
+
             return updateBlueprint(blueprint);
         }
 
@@ -23,9 +23,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.apache.commons.io.FileUtils;
 
+import com.vmware.devops.GenerationPlan;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.Utils;
 import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Action;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription;
 
@@ -132,9 +134,17 @@ public class ExtensibilityClient {
 
     public Action createOrUpdateAction(Action action)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.ACTION, action);
+        }
+
         Action existing = findActionByName(action.getName());
         if (existing != null) {
             action.setSelfLink(existing.getSelfLink());
+            if (NoOpDetector.isNoOp("action", action, existing, "id")) {
+                return existing;
+            }
+
             return updateAction(action);
         }
 
@@ -313,10 +323,17 @@ public class ExtensibilityClient {
 
     public void createOrUpdateSubscription(Subscription subscription)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            GenerationPlan.record(GenerationPlan.Kind.SUBSCRIPTION, subscription);
+            return;
+        }
+
         Subscription existing = findSubscriptionByName(subscription.getName());
         if (existing != null) {
             subscription.setId(existing.getId());
-            createSubscription(subscription);
+            if (!NoOpDetector.isNoOp("subscription", subscription, existing)) {
+                createSubscription(subscription);
+            }
             return;
         }
 
@@ -25,9 +25,11 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import com.vmware.devops.GenerationPlan;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.Utils;
 import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.CloudZone;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.DataCollector;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint;
@@ -115,9 +117,17 @@ public class InfrastructureClient {
 
     public Project createOrUpdateProject(Project project)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.PROJECT, project);
+        }
+
         Project existing = findProjectByName(project.getName());
         if (existing != null) {
             project.setId(existing.getId());
+            if (NoOpDetector.isNoOp("project", project, existing)) {
+                return existing;
+            }
+
             return updateProject(project);
         }
 
@@ -263,9 +273,17 @@ public class InfrastructureClient {
 
     public Endpoint createOrUpdateEndpoint(Endpoint endpoint)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.CLOUD_ACCOUNT, endpoint);
+        }
+
         Endpoint existing = findEndpointByName(endpoint.getName());
         if (existing != null) {
             endpoint.setDocumentSelfLink(existing.getDocumentSelfLink());
+            if (NoOpDetector.isNoOp("cloud-account", endpoint, existing)) {
+                return existing;
+            }
+
             return updateEndpoint(endpoint);
         }
 
@@ -533,9 +551,18 @@ public class InfrastructureClient {
 
     public ImageName createOrUpdateImageName(ImageName imageName)
             throws InterruptedException, IOException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.IMAGE_NAME, imageName);
+        }
+
         ImageName existing = findImageNameByName(imageName.getName());
         if (existing != null) {
             imageName.setOldImageMapping(existing.getImageMapping());
+            if (NoOpDetector.isNoOp("image-name", imageName, existing,
+                    "oldImageMapping")) {
+                return existing;
+            }
+
             return updateImageName(imageName);
         }
 
@@ -782,9 +809,18 @@ public class InfrastructureClient {
 
     public InstanceName createOrUpdateInstanceName(InstanceName instanceName)
             throws InterruptedException, IOException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.INSTANCE_NAME, instanceName);
+        }
+
         InstanceName existing = findInstanceNameByName(instanceName.getName());
         if (existing != null) {
             instanceName.setOldInstanceTypeMapping(existing.getInstanceTypeMapping());
+            if (NoOpDetector.isNoOp("instance-name", instanceName, existing,
+                    "oldInstanceTypeMapping")) {
+                return existing;
+            }
+
             return updateInstanceName(instanceName);
         }
 
@@ -21,9 +21,11 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import com.vmware.devops.GenerationPlan;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.Utils;
 import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
 import com.vmware.devops.client.codestream.stubs.CloudProxy;
 import com.vmware.devops.client.codestream.stubs.Endpoint;
 import com.vmware.devops.client.codestream.stubs.EndpointCertificate;
@@ -84,9 +86,17 @@ public class CodestreamClient {
 
     public Pipeline createOrUpdatePipeline(Pipeline pipeline)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.PIPELINE, pipeline);
+        }
+
         Pipeline existing = findPipelineByName(pipeline.getName());
         if (existing != null) {
             pipeline.setId(existing.getId());
+            if (NoOpDetector.isNoOp("pipeline", pipeline, existing)) {
+                return existing;
+            }
+
             return updatePipeline(pipeline);
         }
         return createPipeline(pipeline);
@@ -334,9 +344,17 @@ public class CodestreamClient {
 
     public GerritTrigger createOrUpdateGerritTrigger(GerritTrigger trigger)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.GERRIT_TRIGGER, trigger);
+        }
+
         GerritTrigger existing = findGerritTriggerrByName(trigger.getName());
         if (existing != null) {
             trigger.setId(existing.getId());
+            if (NoOpDetector.isNoOp("gerrit-trigger", trigger, existing)) {
+                return existing;
+            }
+
             return updateGerritTrigger(trigger);
         }
         return createGerritTrigger(trigger);
@@ -395,9 +413,17 @@ public class CodestreamClient {
 
     public Variable createOrUpdateVariable(Variable variable)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.VARIABLE, variable);
+        }
+
         Variable existing = findVariableByName(variable.getName());
         if (existing != null) {
             variable.setId(existing.getId());
+            if (NoOpDetector.isNoOp("variable", variable, existing)) {
+                return existing;
+            }
+
             return updateVariable(variable);
         }
         return createVariable(variable);
@@ -651,11 +677,17 @@ public class CodestreamClient {
 
     public GerritListener createOrUpdateGerritListener(GerritListener listener)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.GERRIT_LISTENER, listener);
+        }
+
         GerritListener existing = findGerritListenerByName(listener.getName());
         if (existing != null) {
             listener.setId(existing.getId());
 
-            if (existing.equals(listener)) {
+            // The listener was never written unchanged, even with the detection disabled
+            if (NoOpDetector.isNoOp("gerrit-listener", listener, existing)
+                    || existing.equals(listener)) {
                 return existing;
             } else {
                 connectGerritListener(listener.getId(), false);
@@ -766,9 +798,17 @@ public class CodestreamClient {
 
     public Endpoint createOrUpdateEndpoint(Endpoint endpoint)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.CODESTREAM_ENDPOINT, endpoint);
+        }
+
         Endpoint existing = findEndpointByName(endpoint.getName());
         if (existing != null) {
             endpoint.setId(existing.getId());
+            if (NoOpDetector.isNoOp("codestream-endpoint", endpoint, existing)) {
+                return existing;
+            }
+
             return updateEndpoint(endpoint);
         }
         return createEndpoint(endpoint);
@@ -18,9 +18,11 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import com.vmware.devops.GenerationPlan;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.Utils;
 import com.vmware.devops.client.Client;
+import com.vmware.devops.client.NoOpDetector;
 import com.vmware.devops.client.servicebroker.stubs.Policy;
 
 public class ServiceBrokerClient {
@@ -87,9 +89,17 @@ public class ServiceBrokerClient {
 
     public Policy createOrUpdatePolicy(Policy policy)
             throws IOException, InterruptedException, URISyntaxException {
+        if (GenerationPlan.isRecording()) {
+            return GenerationPlan.record(GenerationPlan.Kind.POLICY, policy);
+        }
+
         Policy existing = findPolicyByName(policy.getName());
         if (existing != null) {
             policy.setId(existing.getId());
+            if (NoOpDetector.isNoOp("policy", policy, existing)) {
+                return existing;
+            }
+
             return updatePolicy(policy);
         }
 
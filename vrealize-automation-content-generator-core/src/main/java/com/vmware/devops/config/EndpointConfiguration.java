@@ -43,6 +43,13 @@ public class EndpointConfiguration {
         return client;
     }
 
+    /**
+     * Use the given client instead of logging in, e.g. an offline one
+     */
+    public synchronized void setClient(Client client) {
+        this.client = client;
+    }
+
     public static class AuthenticationDetails {
         @Getter
         private String username;
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Names an entity of a given type which another entity provides or depends on.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityReference {
+    private Type type;
+    private String name;
+
+    public static EntityReference of(Type type, String name) {
+        return new EntityReference(type, name == null ? null : name.trim());
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name;
+    }
+
+    public enum Type {
+        PROJECT,
+        CLOUD_ACCOUNT,
+        ACTION,
+        BLUEPRINT,
+        CODESTREAM_ENDPOINT,
+        VARIABLE,
+        PIPELINE
+    }
+}
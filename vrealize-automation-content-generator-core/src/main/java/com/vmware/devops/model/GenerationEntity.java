@@ -5,6 +5,54 @@
 
 package com.vmware.devops.model;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface GenerationEntity {
     void generate() throws Exception;
+
+    /**
+     * Entities created by {@link #generate()} which other entities may refer to by name.
+     */
+    default List<EntityReference> providedReferences() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Entities which have to exist before {@link #generate()} is called. Only references to
+     * entities generated in the same run are used for scheduling, the rest are ignored.
+     */
+    default List<EntityReference> requiredReferences() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Files read by {@link #generate()}. Their content is part of the fingerprint used to skip
+     * unchanged entities.
+     */
+    default List<String> inputFiles() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * The project the entity is generated in, for {@link #describe()}. Null if it has none.
+     */
+    default String describedProject() {
+        return null;
+    }
+
+    /**
+     * Short identity of the entity for logging, like "Pipeline build (project devops)". Unlike
+     * toString() it doesn't print the whole object graph, nor scans it for references.
+     */
+    default String describe() {
+        StringBuilder result = new StringBuilder(getClass().getSimpleName());
+        providedReferences().stream().findFirst().map(EntityReference::getName)
+                .ifPresent(name -> result.append(' ').append(name));
+        String project = describedProject();
+        if (project != null) {
+            result.append(" (project ").append(project).append(')');
+        }
+        return result.toString();
+    }
 }
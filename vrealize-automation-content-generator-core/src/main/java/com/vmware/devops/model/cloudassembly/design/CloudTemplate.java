@@ -38,6 +38,7 @@ import com.vmware.devops.Utils;
 import com.vmware.devops.client.cloudassembly.design.stubs.Blueprint;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.RunnableType;
 import com.vmware.devops.config.GlobalConfiguration;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.ExtensibilityRunnable;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
@@ -151,7 +152,7 @@ public class CloudTemplate
                 .getCloudAssembly()
                 .getDesign()
                 .createOrUpdateBlueprint(blueprint);
-        IdCache.BLUEPRINT_ID_CACHE.getNameToId().put(blueprint.getName(), blueprint.getId());
+        IdCache.BLUEPRINT_ID_CACHE.put(blueprint.getName(), blueprint.getId());
 
         if (extensibility != null) {
             expandExtensibilityContent(blueprint);
@@ -176,6 +177,52 @@ public class CloudTemplate
         }
     }
 
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.BLUEPRINT, name));
+    }
+
+    @Override
+    public String describedProject() {
+        return Optional.ofNullable(project)
+                .orElse(GenerationContext.getInstance().getGlobalConfiguration()
+                        .getDefaultProject());
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        List<EntityReference> result = new ArrayList<>();
+        result.add(EntityReference.of(EntityReference.Type.PROJECT, Optional.ofNullable(project)
+                .orElse(GenerationContext.getInstance().getGlobalConfiguration()
+                        .getDefaultProject())));
+        if (extensibility != null) {
+            extensibility.subscriptions.forEach(s -> result.addAll(s.requiredReferences()));
+            extensibility.getContent().forEach(c -> {
+                result.addAll(c.getSubscription().requiredReferences());
+                if (c.runnable instanceof Action) {
+                    result.addAll(((Action) c.runnable).requiredReferences());
+                }
+            });
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        List<String> result = new ArrayList<>();
+        if (contentPath != null) {
+            result.add(contentPath);
+        }
+        if (extensibility != null) {
+            extensibility.getContent().stream()
+                    .filter(c -> c.runnable instanceof Action)
+                    .forEach(c -> result.addAll(((Action) c.runnable).inputFiles()));
+        }
+
+        return result;
+    }
+
     public void expandExtensibilityContent(Blueprint blueprint) {
         for (int i = 0; i < extensibility.getContent().size(); i++) {
             Subscription subscription = extensibility.getContent().get(i).getSubscription();
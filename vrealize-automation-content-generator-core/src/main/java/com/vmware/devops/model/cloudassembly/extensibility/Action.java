@@ -42,6 +42,7 @@ import com.vmware.devops.client.cloudassembly.extensibility.stubs.Action.ScriptS
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Action.Type;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.RunnableType;
 import com.vmware.devops.config.GlobalConfiguration;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.ExtensibilityRunnable;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
@@ -239,7 +240,7 @@ public class Action implements GenerationEntity, ExtensibilityRunnable,
         action = GenerationContext.getInstance()
                 .getEndpointConfiguration().getClient().getCloudAssembly().getExtensibility()
                 .createOrUpdateAction(action);
-        IdCache.ACTION_ID_CACHE.getNameToId().put(action.getName(), action.getId());
+        IdCache.ACTION_ID_CACHE.put(action.getName(), action.getId());
 
         expandSubscriptions(action);
         subscriptions.forEach(s -> {
@@ -251,6 +252,44 @@ public class Action implements GenerationEntity, ExtensibilityRunnable,
         });
     }
 
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.ACTION, name));
+    }
+
+    @Override
+    public String describedProject() {
+        return Optional.ofNullable(project)
+                .orElse(GenerationContext.getInstance().getGlobalConfiguration()
+                        .getDefaultProject());
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        List<EntityReference> result = new ArrayList<>();
+        result.add(EntityReference.of(EntityReference.Type.PROJECT, Optional.ofNullable(project)
+                .orElse(GenerationContext.getInstance().getGlobalConfiguration()
+                        .getDefaultProject())));
+        subscriptions.forEach(s -> result.addAll(s.requiredReferences()));
+        return result;
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        List<String> result = new ArrayList<>();
+        if (contentPath != null) {
+            result.add(contentPath);
+        }
+        if (flow != null) {
+            flow.getSteps().values().stream()
+                    .filter(s -> s instanceof ActionStep
+                            && ((ActionStep) s).action instanceof Action)
+                    .forEach(s -> result.addAll(((Action) ((ActionStep) s).action).inputFiles()));
+        }
+
+        return result;
+    }
+
     public void expandSubscriptions(
             com.vmware.devops.client.cloudassembly.extensibility.stubs.Action action) {
         for (Subscription s : subscriptions) {
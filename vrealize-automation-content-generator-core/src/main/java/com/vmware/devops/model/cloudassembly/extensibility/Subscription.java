@@ -7,6 +7,8 @@ package com.vmware.devops.model.cloudassembly.extensibility;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import lombok.AllArgsConstructor;
@@ -22,6 +24,7 @@ import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.E
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.RunnableType;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.Type;
 import com.vmware.devops.config.ExtensibilityConfiguration;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
@@ -136,6 +139,20 @@ public class Subscription
                 .getExtensibility().createOrUpdateSubscription(subscription);
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        List<EntityReference> result = new ArrayList<>();
+        if (runnableName != null) {
+            result.add(EntityReference.of(EntityReference.Type.ACTION, runnableName));
+        }
+
+        if (recoverRunnableName != null) {
+            result.add(EntityReference.of(EntityReference.Type.ACTION, recoverRunnableName));
+        }
+
+        return result;
+    }
+
     @Override
     public void populateData(
             com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription subscription) {
@@ -11,10 +11,12 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.vmware.devops.GenerationContext;
+import com.vmware.devops.IdCache;
 import com.vmware.devops.client.Client;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.EndpointRegions;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.RegionInfo;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 
 public abstract class CloudAccount
@@ -36,6 +38,25 @@ public abstract class CloudAccount
         regions.setEndpointLink(endpoint.getDocumentSelfLink());
         client.getCloudAssembly().getInfrastructure()
                 .updateEndpointRegions(regions);
+
+        IdCache.addCloudAccount(endpoint.getName(), regions.getEnabledRegions().stream()
+                .map(RegionInfo::getName).collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CLOUD_ACCOUNT, getName()));
+    }
+
+    /**
+     * Reference to the cloud account of a "cloudAccount / region" or "cloudAccount / zone" name.
+     * Names without a cloud account refer to the default one.
+     */
+    public static EntityReference referenceOf(String name) {
+        return EntityReference.of(EntityReference.Type.CLOUD_ACCOUNT, name.contains("/")
+                ? name.split("/")[0]
+                : GenerationContext.getInstance().getCloudAssemblyConfiguration()
+                        .getDefaultCloudAccount());
     }
 
     public List<RegionInfo> filterRegions(List<? extends Region> regions) {
@@ -75,6 +96,8 @@ public abstract class CloudAccount
                 .build();
     }
 
+    public abstract String getName();
+
     public abstract Endpoint getEndpoint();
 
     protected abstract List<? extends Region> getEnabledRegions();
@@ -6,6 +6,7 @@
 package com.vmware.devops.model.cloudassembly.infrastructure;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -22,6 +23,7 @@ import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint.EndpointType;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.InstanceName;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Region;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 import com.vmware.devops.model.cloudassembly.infrastructure.NimbusCloudAccount.NimbusFlavor;
@@ -76,6 +78,14 @@ public class FlavorMapping
                 .getCloudAssembly().getInfrastructure().createOrUpdateInstanceName(instanceName);
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return flavorMapping.keySet().stream()
+                .map(CloudAccount::referenceOf)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void populateData(InstanceName instanceName) {
         name = instanceName.getName();
@@ -5,6 +5,7 @@
 
 package com.vmware.devops.model.cloudassembly.infrastructure;
 
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -19,6 +20,7 @@ import com.vmware.devops.IdCache;
 import com.vmware.devops.ReverseGenerationContext;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ImageName;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Region;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
@@ -71,6 +73,14 @@ public class ImageMapping
                 .getCloudAssembly().getInfrastructure().createOrUpdateImageName(imageName);
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return imageMapping.keySet().stream()
+                .map(CloudAccount::referenceOf)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void populateData(ImageName imageName) throws Exception {
         name = imageName.getName();
@@ -44,6 +44,11 @@ public class NimbusCloudAccount extends CloudAccount
     @Builder.Default
     private List<NimbusRegion> enabledRegions = Collections.emptyList();
 
+    @Override
+    public String getName() {
+        return NIMBUS_CLOUD_ACCOUNT_NAME;
+    }
+
     @Override
     public Endpoint getEndpoint() {
         return Endpoint.builder()
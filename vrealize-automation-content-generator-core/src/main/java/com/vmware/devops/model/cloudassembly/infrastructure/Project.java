@@ -34,6 +34,7 @@ import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ProjectPrinci
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ProjectPrincipal.Role;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ProjectPrincipal.Type;
 import com.vmware.devops.config.CloudAssemblyConfiguration;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
@@ -90,15 +91,16 @@ public class Project
     }
 
     public ProjectConfig initializeProjectConfig() {
+        // Read before the parallel stream, the context is bound to the generating thread
+        String defaultCloudAccount = GenerationContext.getInstance()
+                .getCloudAssemblyConfiguration().getDefaultCloudAccount();
         return ProjectConfig.builder()
                 .cloudZones(
                         cloudZones.parallelStream().map(
                                 n -> {
                                     try {
                                         if (!n.contains("/")) {
-                                            n = GenerationContext.getInstance()
-                                                    .getCloudAssemblyConfiguration()
-                                                    .getDefaultCloudAccount() + " / " + n;
+                                            n = defaultCloudAccount + " / " + n;
                                         } else {
                                             String[] splitted = n.split("/");
                                             n = splitted[0].trim() + " / " + splitted[1]
@@ -128,6 +130,8 @@ public class Project
                 .getEndpointConfiguration().getClient();
         project = client.getCloudAssembly().getInfrastructure()
                 .createOrUpdateProject(project);
+        IdCache.PROJECT_ID_CACHE.put(project.getName(), project.getId());
+
         projectConfig.setProjectState(ProjectState.builder()
                 .documentSelfLink(InfrastructureClient.PROJECTS_ENDPOINT + "/" + project.getId())
                 .build());
@@ -136,8 +140,19 @@ public class Project
         client.getCloudAssembly().getInfrastructure()
                 .updateProjectPrincipals(project.getId(),
                         createUpdateProjectPrincipalsRequest(project));
+    }
+
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.PROJECT, name));
+    }
 
-        IdCache.PROJECT_ID_CACHE.getNameToId().put(project.getName(), project.getId());
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return cloudZones.stream()
+                .map(CloudAccount::referenceOf)
+                .distinct()
+                .collect(Collectors.toList());
     }
 
     public UpdateProjectPrincipalsRequest createUpdateProjectPrincipalsRequest(
@@ -16,6 +16,7 @@ import lombok.NoArgsConstructor;
 import com.vmware.devops.GenerationContext;
 import com.vmware.devops.client.codestream.stubs.Notification.Event;
 import com.vmware.devops.client.codestream.stubs.Notification.Type;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * EmailNotification represent entity that implements {@link com.vmware.devops.model.codestream.Notification}
@@ -82,6 +83,13 @@ public class EmailNotification implements
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT,
+                Optional.ofNullable(endpoint).orElse(GenerationContext.getInstance()
+                        .getCodestreamConfiguration().getDefaultEmailEndpoint())));
+    }
+
     @Override
     public void populateData(
             com.vmware.devops.client.codestream.stubs.Notification.EmailNotification notification) {
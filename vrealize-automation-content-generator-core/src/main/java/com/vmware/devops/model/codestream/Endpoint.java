@@ -7,17 +7,22 @@ package com.vmware.devops.model.codestream;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 import lombok.Getter;
 
+import com.vmware.devops.BoundedCache;
 import com.vmware.devops.GenerationContext;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 
 public abstract class Endpoint implements GenerationEntity {
     public static final EndpointFingerprintCache ENDPOINT_FINGERPRINT_CACHE = new EndpointFingerprintCache();
 
+    public abstract String getName();
+
+    public abstract String getProject();
+
     public abstract com.vmware.devops.client.codestream.stubs.Endpoint initializeEndpoint()
             throws Exception;
 
@@ -28,25 +33,43 @@ public abstract class Endpoint implements GenerationEntity {
                 .getCodestream().createOrUpdateEndpoint(endpoint);
     }
 
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT, getName()));
+    }
+
+    @Override
+    public String describedProject() {
+        return getProject();
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.PROJECT, getProject()));
+    }
+
     public static class EndpointFingerprintCache {
 
         @Getter
-        private final Map<String, String> urlToFingerprint = new ConcurrentHashMap<>();
+        private final BoundedCache<String, String> urlToFingerprint = BoundedCache.register(
+                new BoundedCache<>(EndpointFingerprintCache.class.getSimpleName()));
 
         private EndpointFingerprintCache() {
         }
 
         public String getFingerprint(String url, String cloudProxyId)
                 throws InterruptedException, IOException, URISyntaxException {
-            if (urlToFingerprint.get(url) == null) {
-                urlToFingerprint.put(url,
-                        GenerationContext.getInstance().getEndpointConfiguration().getClient()
-                                .getCodestream().getEndpointCertificate(url, cloudProxyId)
-                                .getCertificates().get(0)
-                                .getFingerprints().get("SHA-256"));
+            String fingerprint = urlToFingerprint.get(url);
+            if (fingerprint == null) {
+                long start = System.nanoTime();
+                fingerprint = GenerationContext.getInstance().getEndpointConfiguration().getClient()
+                        .getCodestream().getEndpointCertificate(url, cloudProxyId)
+                        .getCertificates().get(0)
+                        .getFingerprints().get("SHA-256");
+                urlToFingerprint.putLoaded(url, fingerprint, System.nanoTime() - start);
             }
 
-            return urlToFingerprint.get(url);
+            return fingerprint;
         }
     }
 }
@@ -21,6 +21,7 @@ import com.vmware.devops.GenerationContext;
 import com.vmware.devops.ReverseGenerationContext;
 import com.vmware.devops.client.codestream.stubs.GerritTrigger.Configuration.EventType;
 import com.vmware.devops.client.codestream.stubs.GerritTrigger.Pattern.PatternType;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
 /**
@@ -229,6 +230,23 @@ public class GerritTrigger extends Trigger implements
                 .createOrUpdateGerritTrigger(trigger);
     }
 
+    @Override
+    public String describedProject() {
+        return project;
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        List<EntityReference> result = new ArrayList<>();
+        result.add(EntityReference.of(EntityReference.Type.PROJECT, project));
+        result.add(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT, listener));
+        configurations.stream()
+                .filter(c -> c.getPipeline() != null)
+                .forEach(c -> result
+                        .add(EntityReference.of(EntityReference.Type.PIPELINE, c.getPipeline())));
+        return result;
+    }
+
     @Override
     public void populateData(com.vmware.devops.client.codestream.stubs.GerritTrigger gerritTrigger)
             throws Exception {
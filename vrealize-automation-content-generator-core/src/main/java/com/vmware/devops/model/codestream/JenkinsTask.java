@@ -20,6 +20,7 @@ import com.vmware.devops.GenerationContext;
 import com.vmware.devops.client.codestream.stubs.Task.EndpointKeys;
 import com.vmware.devops.client.codestream.stubs.Task.JenkinsInput;
 import com.vmware.devops.client.codestream.stubs.Task.Type;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * JenkinsTask implements {@link com.vmware.devops.model.codestream.Task} and can be included in
@@ -105,6 +106,11 @@ public class JenkinsTask implements Task, CodestreamTask, WithInputs, WithOutput
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT, endpoint));
+    }
+
     @Override
     public void populateData(Pipeline parent, String name,
             com.vmware.devops.client.codestream.stubs.Task task) {
@@ -5,6 +5,7 @@
 
 package com.vmware.devops.model.codestream;
 
+import java.util.List;
 import java.util.Optional;
 
 import lombok.AllArgsConstructor;
@@ -15,6 +16,7 @@ import lombok.NoArgsConstructor;
 import com.vmware.devops.GenerationContext;
 import com.vmware.devops.client.codestream.stubs.Notification.Event;
 import com.vmware.devops.client.codestream.stubs.Notification.Type;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * JiraNotification represent entity that implements {@link com.vmware.devops.model.codestream.Notification}
@@ -98,6 +100,13 @@ public class JiraNotification implements
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT,
+                Optional.ofNullable(endpoint).orElse(GenerationContext.getInstance()
+                        .getCodestreamConfiguration().getDefaultJiraEndpoint())));
+    }
+
     @Override
     public void populateData(
             com.vmware.devops.client.codestream.stubs.Notification.JiraNotification notification) {
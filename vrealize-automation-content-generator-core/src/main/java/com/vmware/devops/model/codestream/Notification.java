@@ -5,7 +5,11 @@
 
 package com.vmware.devops.model.codestream;
 
+import java.util.Collections;
+import java.util.List;
+
 import com.vmware.devops.client.codestream.stubs.Notification.Type;
+import com.vmware.devops.model.EntityReference;
 
 public interface Notification<T extends com.vmware.devops.client.codestream.stubs.Notification> {
     Type getType();
@@ -13,4 +17,11 @@ public interface Notification<T extends com.vmware.devops.client.codestream.stub
     com.vmware.devops.client.codestream.stubs.Notification initializeNotification();
 
     void populateData(T notification);
+
+    /**
+     * Endpoints the notification refers to by name.
+     */
+    default List<EntityReference> requiredReferences() {
+        return Collections.emptyList();
+    }
 }
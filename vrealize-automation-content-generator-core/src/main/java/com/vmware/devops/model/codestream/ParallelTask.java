@@ -7,11 +7,14 @@ package com.vmware.devops.model.codestream;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.vmware.devops.model.EntityReference;
+
 /**
  * ParallelTask implements {@link com.vmware.devops.model.codestream.Task} and can be included in
  * CodeStream Stage. It represent parallel CodeStream Tasks of any type that implements {@link
@@ -29,4 +32,20 @@ public class ParallelTask implements Task {
      * list and will construct the parallel description for you.
      */
     private List<CodestreamTask> tasks = Collections.emptyList();
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return tasks.stream()
+                .filter(t -> t instanceof Task)
+                .flatMap(t -> ((Task) t).requiredReferences().stream())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        return tasks.stream()
+                .filter(t -> t instanceof Task)
+                .flatMap(t -> ((Task) t).inputFiles().stream())
+                .collect(Collectors.toList());
+    }
 }
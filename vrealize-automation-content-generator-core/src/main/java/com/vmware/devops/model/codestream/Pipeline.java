@@ -15,6 +15,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,7 +24,9 @@ import lombok.extern.slf4j.Slf4j;
 
 import com.vmware.devops.GenerationContext;
 import com.vmware.devops.ReverseGenerationContext;
+import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.client.codestream.stubs.Notification.Type;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
@@ -195,6 +198,43 @@ public class Pipeline implements GenerationEntity,
         }
     }
 
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.PIPELINE, name));
+    }
+
+    @Override
+    public String describedProject() {
+        return project;
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        List<EntityReference> result = new ArrayList<>();
+        result.add(EntityReference.of(EntityReference.Type.PROJECT, project));
+        stages.stream().flatMap(s -> s.getTasks().stream())
+                .forEach(t -> result.addAll(t.requiredReferences()));
+        for (Notification<?> n : notifications) {
+            result.addAll(n.requiredReferences());
+        }
+        triggers.forEach(t -> result.addAll(t.requiredReferences()));
+        try {
+            result.addAll(Variable.findVariableReferences(SerializationUtils.toJson(stages)));
+            result.addAll(Variable.findVariableReferences(SerializationUtils.toJson(inputs)));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to look up variable references of pipeline " + name, e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        return stages.stream().flatMap(s -> s.getTasks().stream())
+                .flatMap(t -> t.inputFiles().stream())
+                .collect(Collectors.toList());
+    }
+
     private Map<String, String> processInputs() {
         List<Input> inlineInputs = stages.stream().flatMap(s -> s.getTasks().stream())
                 .flatMap(t -> {
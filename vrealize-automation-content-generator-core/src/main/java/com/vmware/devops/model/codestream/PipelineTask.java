@@ -17,6 +17,7 @@ import lombok.NoArgsConstructor;
 
 import com.vmware.devops.client.codestream.stubs.Task.PipelineInput;
 import com.vmware.devops.client.codestream.stubs.Task.Type;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * PipelineTask implements {@link com.vmware.devops.model.codestream.Task} and can be included in
@@ -85,6 +86,12 @@ public class PipelineTask implements Task, CodestreamTask, WithInputs, WithOutpu
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.PIPELINE,
+                Optional.ofNullable(pipeline).orElse(name)));
+    }
+
     @Override
     public void populateData(Pipeline parent, String name,
             com.vmware.devops.client.codestream.stubs.Task task) {
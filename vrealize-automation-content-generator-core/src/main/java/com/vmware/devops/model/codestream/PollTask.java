@@ -19,6 +19,7 @@ import com.vmware.devops.GenerationContext;
 import com.vmware.devops.client.codestream.stubs.Task.EndpointKeys;
 import com.vmware.devops.client.codestream.stubs.Task.PollInput;
 import com.vmware.devops.client.codestream.stubs.Task.Type;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * PollTask implements {@link com.vmware.devops.model.codestream.Task} and can be included in
@@ -156,6 +157,11 @@ public class PollTask implements Task, CodestreamTask, WithOutputs {
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT, agent));
+    }
+
     @Override
     public void populateData(Pipeline parent, String name,
             com.vmware.devops.client.codestream.stubs.Task task) {
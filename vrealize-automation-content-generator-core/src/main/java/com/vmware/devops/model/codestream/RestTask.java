@@ -21,6 +21,7 @@ import com.vmware.devops.client.codestream.stubs.Task.EndpointKeys;
 import com.vmware.devops.client.codestream.stubs.Task.RestInput;
 import com.vmware.devops.client.codestream.stubs.Task.RestInput.RestActions;
 import com.vmware.devops.client.codestream.stubs.Task.Type;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * RestTask implements {@link com.vmware.devops.model.codestream.Task} and can be included in
@@ -135,6 +136,11 @@ public class RestTask implements Task, CodestreamTask, WithOutputs {
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT, agent));
+    }
+
     @Override
     public void populateData(Pipeline parent, String name,
             com.vmware.devops.client.codestream.stubs.Task task) {
@@ -27,6 +27,7 @@ import com.vmware.devops.client.codestream.stubs.Task.SshInput;
 import com.vmware.devops.client.codestream.stubs.Task.SshInput.SshInputBuilder;
 import com.vmware.devops.client.codestream.stubs.Task.Type;
 import com.vmware.devops.client.codestream.stubs.Variable.VariableType;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * RestTask implements {@link com.vmware.devops.model.codestream.Task} and can be included in
@@ -228,6 +229,16 @@ public class SshTask implements Task, CodestreamTask, WithOutputs {
                 .build();
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT, agent));
+    }
+
+    @Override
+    public List<String> inputFiles() {
+        return scriptPath == null ? Collections.emptyList() : List.of(scriptPath);
+    }
+
     @Override
     public void populateData(Pipeline parent, String name,
             com.vmware.devops.client.codestream.stubs.Task task) {
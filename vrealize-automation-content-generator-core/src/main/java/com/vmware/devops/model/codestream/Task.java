@@ -5,9 +5,28 @@
 
 package com.vmware.devops.model.codestream;
 
+import java.util.Collections;
+import java.util.List;
+
+import com.vmware.devops.model.EntityReference;
+
 /**
  * Task is the main entity we will be using to construct CodeStream Task that can be included in
  * CodeStream Stage
  */
 public interface Task {
+
+    /**
+     * Endpoints and pipelines the task refers to by name.
+     */
+    default List<EntityReference> requiredReferences() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Files read while the task is initialized.
+     */
+    default List<String> inputFiles() {
+        return Collections.emptyList();
+    }
 }
@@ -5,6 +5,7 @@
 
 package com.vmware.devops.model.codestream;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,6 +19,7 @@ import com.vmware.devops.GenerationContext;
 import com.vmware.devops.client.codestream.stubs.Task.EndpointKeys;
 import com.vmware.devops.client.codestream.stubs.Task.Type;
 import com.vmware.devops.client.codestream.stubs.Task.UserOperationInput;
+import com.vmware.devops.model.EntityReference;
 
 /**
  * UserOperationTask implements {@link com.vmware.devops.model.codestream.Task} and can be included
@@ -127,6 +129,17 @@ public class UserOperationTask implements Task, CodestreamTask {
         return result;
     }
 
+    @Override
+    public List<EntityReference> requiredReferences() {
+        if (!Boolean.TRUE.equals(sendEmail)) {
+            return Collections.emptyList();
+        }
+
+        return List.of(EntityReference.of(EntityReference.Type.CODESTREAM_ENDPOINT,
+                Optional.ofNullable(endpoint).orElse(GenerationContext.getInstance()
+                        .getCodestreamConfiguration().getDefaultEmailEndpoint())));
+    }
+
     @Override
     public void populateData(Pipeline parent, String name,
             com.vmware.devops.client.codestream.stubs.Task task) {
@@ -5,6 +5,11 @@
 
 package com.vmware.devops.model.codestream;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,6 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 import com.vmware.devops.GenerationContext;
 import com.vmware.devops.ReverseGenerationContext;
 import com.vmware.devops.client.codestream.stubs.Variable.VariableType;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
@@ -51,6 +57,9 @@ public class Variable implements GenerationEntity,
     @Builder.Default
     private VariableType type = VariableType.REGULAR;
 
+    private static final Pattern VARIABLE_REFERENCE_PATTERN = Pattern
+            .compile("\\$\\{var\\.([^}]+)}");
+
     /**
      * Method for generating the reference of the variable.
      * @param key
@@ -61,6 +70,19 @@ public class Variable implements GenerationEntity,
         return String.format("${var.%s}", key);
     }
 
+    /**
+     * Find all variables referred with {@link #variableReference(String)} in the given content.
+     */
+    public static List<EntityReference> findVariableReferences(String content) {
+        List<EntityReference> result = new ArrayList<>();
+        Matcher matcher = VARIABLE_REFERENCE_PATTERN.matcher(content);
+        while (matcher.find()) {
+            result.add(EntityReference.of(EntityReference.Type.VARIABLE, matcher.group(1)));
+        }
+
+        return result;
+    }
+
     public com.vmware.devops.client.codestream.stubs.Variable initializeVariable() {
         return com.vmware.devops.client.codestream.stubs.Variable.builder()
                 .project(GenerationContext.getInstance().getGlobalConfiguration()
@@ -79,6 +101,22 @@ public class Variable implements GenerationEntity,
                 .createOrUpdateVariable(variable);
     }
 
+    @Override
+    public List<EntityReference> providedReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.VARIABLE, name));
+    }
+
+    @Override
+    public String describedProject() {
+        return GenerationContext.getInstance().getGlobalConfiguration().getDefaultProject();
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        return List.of(EntityReference.of(EntityReference.Type.PROJECT,
+                GenerationContext.getInstance().getGlobalConfiguration().getDefaultProject()));
+    }
+
     /**
      * Method for generating the reference of the variable.
      * @return Reference of the variable to be used
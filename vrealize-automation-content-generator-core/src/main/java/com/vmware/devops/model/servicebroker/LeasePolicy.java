@@ -5,6 +5,9 @@
 
 package com.vmware.devops.model.servicebroker;
 
+import java.util.Collections;
+import java.util.List;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +21,7 @@ import com.vmware.devops.client.servicebroker.stubs.Policy;
 import com.vmware.devops.client.servicebroker.stubs.Policy.EnforcementType;
 import com.vmware.devops.client.servicebroker.stubs.Policy.LeaseDefinition;
 import com.vmware.devops.client.servicebroker.stubs.Policy.Type;
+import com.vmware.devops.model.EntityReference;
 import com.vmware.devops.model.GenerationEntity;
 import com.vmware.devops.model.ReverseGenerationEntity;
 
@@ -97,6 +101,20 @@ public class LeasePolicy implements GenerationEntity, ReverseGenerationEntity<Po
                 .getServiceBroker().createOrUpdatePolicy(policy);
     }
 
+    @Override
+    public String describedProject() {
+        return project;
+    }
+
+    @Override
+    public List<EntityReference> requiredReferences() {
+        if (project == null) {
+            return Collections.emptyList();
+        }
+
+        return List.of(EntityReference.of(EntityReference.Type.PROJECT, project));
+    }
+
     @Override
     public void populateData(Policy policy) {
         name = policy.getName();
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 2, 1, TimeUnit.HOURS);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        Assert.assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("1", cache.get("a"));
+        Assert.assertEquals("3", cache.get("c"));
+        Assert.assertEquals(1, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testExpiredEntryIsEvicted() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 2, 0, TimeUnit.SECONDS);
+        cache.put("a", "1");
+
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testStatistics() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test");
+        Assert.assertNull(cache.get("a"));
+        cache.putLoaded("a", "1", TimeUnit.MILLISECONDS.toNanos(5));
+        Assert.assertEquals("1", cache.get("a"));
+
+        BoundedCache.Statistics statistics = cache.getStatistics();
+        Assert.assertEquals(1, statistics.getHits());
+        Assert.assertEquals(1, statistics.getMisses());
+        Assert.assertEquals(1, statistics.getLoads());
+        Assert.assertEquals(5, statistics.getTotalLoadTimeMillis());
+        Assert.assertEquals(0.5, statistics.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testRegister() {
+        // Only the process wide caches are kept and reported
+        Assert.assertFalse(BoundedCache.getCaches().contains(new BoundedCache<>("test")));
+        Assert.assertTrue(BoundedCache.getCaches()
+                .contains(IdCache.PROJECT_ID_CACHE.getNameToId()));
+    }
+}
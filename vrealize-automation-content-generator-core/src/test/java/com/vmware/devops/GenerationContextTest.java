@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GenerationContextTest {
+
+    @After
+    public void tearDown() {
+        GenerationContext.reset();
+    }
+
+    @Test
+    public void testGetInstance() {
+        GenerationContext.reset();
+        Set<GenerationContext> contexts = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 10000).parallel()
+                .forEach(i -> contexts.add(GenerationContext.getInstance()));
+        Assert.assertEquals(Set.of(GenerationContext.getInstance()), contexts);
+
+        GenerationContext previous = GenerationContext.getInstance();
+        GenerationContext.reset();
+        Assert.assertNotSame(previous, GenerationContext.getInstance());
+    }
+
+    @Test
+    public void testSnapshot() throws InterruptedException {
+        GenerationContext.getInstance().getGlobalConfiguration().setDefaultProject("first");
+        GenerationContext snapshot = GenerationContext.getInstance().snapshot();
+        GenerationContext.getInstance().getGlobalConfiguration().setDefaultProject("second");
+
+        Assert.assertEquals("first", snapshot.getGlobalConfiguration().getDefaultProject());
+        Assert.assertSame(GenerationContext.getInstance().getEndpointConfiguration(),
+                snapshot.getEndpointConfiguration());
+        Assert.assertSame(GenerationContext.getInstance().getThreadPool(),
+                snapshot.getThreadPool());
+
+        Assert.assertNull(GenerationContext.bind(snapshot));
+        try {
+            Assert.assertSame(snapshot, GenerationContext.getInstance());
+
+            // Only the current thread is bound
+            AtomicReference<String> other = new AtomicReference<>();
+            Thread thread = new Thread(() -> other.set(GenerationContext.getInstance()
+                    .getGlobalConfiguration().getDefaultProject()));
+            thread.start();
+            thread.join();
+            Assert.assertEquals("second", other.get());
+        } finally {
+            Assert.assertSame(snapshot, GenerationContext.bind(null));
+        }
+        Assert.assertEquals("second",
+                GenerationContext.getInstance().getGlobalConfiguration().getDefaultProject());
+    }
+}
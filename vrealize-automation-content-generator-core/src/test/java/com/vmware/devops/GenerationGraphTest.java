@@ -0,0 +1,276 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vmware.devops.GenerationGraph.Node;
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.EntityReference.Type;
+import com.vmware.devops.model.GenerationEntity;
+
+public class GenerationGraphTest {
+
+    @Test
+    public void testDependenciesFromReferences() {
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+        TestEntity action = new TestEntity("action", List.of(ref(Type.ACTION, "a")),
+                List.of(ref(Type.PROJECT, "p")));
+        TestEntity unrelated = new TestEntity("unrelated", List.of(),
+                List.of(ref(Type.PROJECT, "missing")));
+
+        GenerationGraph graph = GenerationGraph
+                .build(List.of(List.of(project), List.of(action, unrelated)), false);
+
+        Assert.assertEquals(Set.of(project), dependencies(graph, action));
+        Assert.assertEquals(Set.of(), dependencies(graph, unrelated));
+        Assert.assertEquals(Set.of(), dependencies(graph, project));
+    }
+
+    @Test
+    public void testReferencesToHigherLayersAreIgnored() {
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+        TestEntity action = new TestEntity("action", List.of(), List.of(ref(Type.PROJECT, "p")));
+
+        GenerationGraph graph = GenerationGraph
+                .build(List.of(List.of(action), List.of(project)), false);
+
+        Assert.assertEquals(Set.of(), dependencies(graph, action));
+    }
+
+    @Test
+    public void testCyclesAreBroken() {
+        TestEntity first = new TestEntity("first", List.of(ref(Type.PIPELINE, "first")),
+                List.of(ref(Type.PIPELINE, "second")));
+        TestEntity second = new TestEntity("second", List.of(ref(Type.PIPELINE, "second")),
+                List.of(ref(Type.PIPELINE, "first")));
+
+        GenerationGraph graph = GenerationGraph.build(List.of(List.of(first, second)), false);
+
+        Assert.assertEquals(1,
+                dependencies(graph, first).size() + dependencies(graph, second).size());
+    }
+
+    @Test
+    public void testStrictOrdering() throws InterruptedException {
+        List<String> generated = Collections.synchronizedList(new ArrayList<>());
+        TestEntity first = new TestEntity("first", List.of(), List.of());
+        TestEntity second = new TestEntity("second", List.of(), List.of());
+        TestEntity third = new TestEntity("third", List.of(), List.of());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GenerationScheduler scheduler = new GenerationScheduler(new GenerationGraph(true),
+                executor, 4, e -> generated.add(e.toString()));
+        scheduler.addLayer(0, List.of(first));
+        scheduler.addLayer(1, List.of());
+        scheduler.addLayer(2, List.of(second));
+        scheduler.addLayer(3, List.of(third));
+        scheduler.awaitCompletion();
+        executor.shutdown();
+
+        Assert.assertEquals(List.of("first", "second", "third"), generated);
+    }
+
+    @Test
+    public void testSchedulerRunsDependenciesFirst() throws InterruptedException {
+        List<String> generated = Collections.synchronizedList(new ArrayList<>());
+        TestEntity pipeline = new TestEntity("pipeline", List.of(),
+                List.of(ref(Type.CODESTREAM_ENDPOINT, "e"), ref(Type.VARIABLE, "v")));
+        TestEntity endpoint = new TestEntity("endpoint",
+                List.of(ref(Type.CODESTREAM_ENDPOINT, "e")), List.of(ref(Type.PROJECT, "p")));
+        TestEntity variable = new TestEntity("variable", List.of(ref(Type.VARIABLE, "v")),
+                List.of(ref(Type.PROJECT, "p")));
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GenerationScheduler scheduler = new GenerationScheduler(new GenerationGraph(false),
+                executor, 4, e -> generated.add(e.toString()));
+        scheduler.addLayer(0, List.of(pipeline, endpoint, variable, project));
+        scheduler.awaitCompletion();
+        executor.shutdown();
+
+        Assert.assertEquals(4, generated.size());
+        Assert.assertEquals("project", generated.get(0));
+        Assert.assertEquals("pipeline", generated.get(3));
+    }
+
+    @Test
+    public void testLayersAddedWhileGenerating() throws InterruptedException {
+        List<String> generated = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch projectStarted = new CountDownLatch(1);
+        CountDownLatch releaseProject = new CountDownLatch(1);
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+        TestEntity action = new TestEntity("action", List.of(), List.of(ref(Type.PROJECT, "p")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GenerationScheduler scheduler = new GenerationScheduler(new GenerationGraph(false),
+                executor, 4,
+                e -> {
+                    if (e == project) {
+                        projectStarted.countDown();
+                        try {
+                            releaseProject.await();
+                        } catch (InterruptedException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                    generated.add(e.toString());
+                });
+        scheduler.addLayer(0, List.of(project));
+        projectStarted.await();
+        scheduler.addLayer(1, List.of(action));
+        releaseProject.countDown();
+        scheduler.awaitCompletion();
+        executor.shutdown();
+
+        Assert.assertEquals(List.of("project", "action"), generated);
+    }
+
+    @Test
+    public void testLongestChainStartsFirst() throws InterruptedException {
+        List<String> generated = Collections.synchronizedList(new ArrayList<>());
+        TestEntity single = new TestEntity("single", List.of(), List.of());
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+        TestEntity endpoint = new TestEntity("endpoint",
+                List.of(ref(Type.CODESTREAM_ENDPOINT, "e")), List.of(ref(Type.PROJECT, "p")));
+        TestEntity pipeline = new TestEntity("pipeline", List.of(),
+                List.of(ref(Type.CODESTREAM_ENDPOINT, "e")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GenerationGraph graph = new GenerationGraph(false);
+        GenerationScheduler scheduler = new GenerationScheduler(graph, executor, 1,
+                e -> generated.add(e.toString()));
+        scheduler.addLayer(0, List.of(single, pipeline, endpoint, project));
+        scheduler.awaitCompletion();
+        executor.shutdown();
+
+        Assert.assertEquals(List.of("project", "endpoint", "single", "pipeline"), generated);
+        Assert.assertEquals(3, graph.getNodes().stream().filter(n -> n.getEntity() == project)
+                .findFirst().orElseThrow().getPriority());
+    }
+
+    @Test
+    public void testLaterLayerRaisesPriority() throws InterruptedException {
+        List<String> generated = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlocker = new CountDownLatch(1);
+        TestEntity blocker = new TestEntity("blocker", List.of(), List.of());
+        TestEntity single = new TestEntity("single", List.of(), List.of());
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+        TestEntity action = new TestEntity("action", List.of(), List.of(ref(Type.PROJECT, "p")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GenerationScheduler scheduler = new GenerationScheduler(new GenerationGraph(false),
+                executor, 1,
+                e -> {
+                    if (e == blocker) {
+                        blockerStarted.countDown();
+                        try {
+                            releaseBlocker.await();
+                        } catch (InterruptedException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                    generated.add(e.toString());
+                });
+        scheduler.addLayer(0, List.of(blocker, single, project));
+        blockerStarted.await();
+        // The project waits with the priority of the single entity until the action needs it
+        scheduler.addLayer(1, List.of(action));
+        releaseBlocker.countDown();
+        scheduler.awaitCompletion();
+        executor.shutdown();
+
+        Assert.assertEquals(List.of("blocker", "project", "single", "action"), generated);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        List<String> generated = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch projectStarted = new CountDownLatch(1);
+        TestEntity project = new TestEntity("project", List.of(ref(Type.PROJECT, "p")), List.of());
+        TestEntity action = new TestEntity("action", List.of(), List.of(ref(Type.PROJECT, "p")));
+        TestEntity pipeline = new TestEntity("pipeline", List.of(), List.of());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GenerationScheduler scheduler = new GenerationScheduler(new GenerationGraph(false),
+                executor, 1,
+                e -> {
+                    if (e == project) {
+                        projectStarted.countDown();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException ex) {
+                            generated.add("interrupted");
+                            return;
+                        }
+                    }
+                    generated.add(e.toString());
+                });
+        scheduler.addLayer(0, List.of(project, action));
+        projectStarted.await();
+        scheduler.cancel();
+        scheduler.addLayer(1, List.of(pipeline));
+        scheduler.awaitCompletion();
+        executor.shutdown();
+
+        Assert.assertEquals(List.of("interrupted"), generated);
+        Assert.assertEquals(List.of(action, pipeline), scheduler.getSkipped());
+    }
+
+    private static EntityReference ref(Type type, String name) {
+        return EntityReference.of(type, name);
+    }
+
+    private static Set<GenerationEntity> dependencies(GenerationGraph graph,
+            GenerationEntity entity) {
+        return graph.getNodes().stream().filter(n -> n.getEntity() == entity).findFirst()
+                .orElseThrow().getDependencies().stream().map(Node::getEntity)
+                .collect(Collectors.toSet());
+    }
+
+    private static class TestEntity implements GenerationEntity {
+        private final String name;
+        private final List<EntityReference> provided;
+        private final List<EntityReference> required;
+
+        private TestEntity(String name, List<EntityReference> provided,
+                List<EntityReference> required) {
+            this.name = name;
+            this.provided = provided;
+            this.required = required;
+        }
+
+        @Override
+        public void generate() {
+        }
+
+        @Override
+        public List<EntityReference> providedReferences() {
+            return provided;
+        }
+
+        @Override
+        public List<EntityReference> requiredReferences() {
+            return required;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
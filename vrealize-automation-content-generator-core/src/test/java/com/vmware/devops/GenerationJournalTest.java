@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+public class GenerationJournalTest {
+    private File journalFile;
+
+    @Before
+    public void setUp() throws IOException {
+        journalFile = new File(Files.createTempDirectory("journal-test").toFile(),
+                "journal.jsonl");
+        journalFile.deleteOnExit();
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        TestEntity generated = new TestEntity("generated");
+        TestEntity interrupted = new TestEntity("interrupted");
+        GenerationJournal journal = GenerationJournal.open(journalFile, "instance", false);
+        journal.record(generated, "hash");
+        // Killed while writing the next entry
+        Files.writeString(journalFile.toPath(), "{\"instance\":\"inst", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        journal = GenerationJournal.open(journalFile, "instance", true);
+        Assert.assertTrue(journal.isCompleted(generated, "hash"));
+        Assert.assertFalse(journal.isCompleted(generated, "changed"));
+        Assert.assertFalse(journal.isCompleted(interrupted, "hash"));
+        Assert.assertFalse(GenerationJournal.open(journalFile, "other", true)
+                .isCompleted(generated, "hash"));
+
+        journal.record(interrupted, "hash");
+        journal = GenerationJournal.open(journalFile, "instance", true);
+        Assert.assertTrue(journal.isCompleted(interrupted, "hash"));
+
+        journal = GenerationJournal.open(journalFile, "instance", false);
+        Assert.assertFalse(journal.isCompleted(generated, "hash"));
+    }
+
+    @Test
+    public void testDeletedOnceComplete() throws IOException {
+        GenerationJournal journal = GenerationJournal.open(journalFile, "instance", false);
+        journal.record(new TestEntity("generated"), "hash");
+        Assert.assertTrue(journalFile.isFile());
+
+        journal.close();
+        Assert.assertFalse(journalFile.exists());
+    }
+
+    private static class TestEntity implements GenerationEntity {
+        private final String name;
+
+        private TestEntity(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void generate() {
+        }
+
+        @Override
+        public List<EntityReference> providedReferences() {
+            return List.of(EntityReference.of(EntityReference.Type.PIPELINE, name));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+public class GenerationManifestTest {
+
+    @Test
+    public void testFingerprint() throws IOException {
+        File input = File.createTempFile("manifest-test", ".sh");
+        input.deleteOnExit();
+        FileUtils.writeStringToFile(input, "echo 1", StandardCharsets.UTF_8);
+
+        GenerationManifest manifest = GenerationManifest.load(null, "instance");
+        String fingerprint = manifest.fingerprint(new TestEntity("a", input.getPath()));
+
+        Assert.assertEquals(fingerprint,
+                manifest.fingerprint(new TestEntity("a", input.getPath())));
+        Assert.assertNotEquals(fingerprint,
+                manifest.fingerprint(new TestEntity("b", input.getPath())));
+        Assert.assertNotEquals(fingerprint,
+                GenerationManifest.load(null, "other").fingerprint(
+                        new TestEntity("a", input.getPath())));
+
+        FileUtils.writeStringToFile(input, "echo 2", StandardCharsets.UTF_8);
+        Assert.assertNotEquals(fingerprint,
+                manifest.fingerprint(new TestEntity("a", input.getPath())));
+
+        Assert.assertNull(manifest.fingerprint(new TestEntity("a", "missing.sh")));
+    }
+
+    @Test
+    public void testUnchangedAfterSave() throws IOException {
+        File manifestFile = new File(Files.createTempDirectory("manifest-test").toFile(),
+                "manifest.json");
+        manifestFile.deleteOnExit();
+
+        GenerationManifest manifest = GenerationManifest.load(manifestFile, "instance");
+        String generated = manifest.fingerprint(new TestEntity("generated", null));
+        String failed = manifest.fingerprint(new TestEntity("failed", null));
+        Assert.assertFalse(manifest.isUnchanged(generated));
+        Assert.assertFalse(manifest.isUnchanged(failed));
+        manifest.record(generated, new TestEntity("generated", null));
+        manifest.save(true);
+
+        manifest = GenerationManifest.load(manifestFile, "instance");
+        Assert.assertTrue(manifest.isUnchanged(generated));
+        Assert.assertFalse(manifest.isUnchanged(failed));
+        Assert.assertFalse(manifest.isUnchanged(null));
+
+        manifest = GenerationManifest.load(manifestFile, "other");
+        Assert.assertFalse(manifest.isUnchanged(generated));
+    }
+
+    @Test
+    public void testSaveBySpecs() throws IOException {
+        File manifestFile = new File(Files.createTempDirectory("manifest-test").toFile(),
+                "manifest.json");
+        manifestFile.deleteOnExit();
+
+        GenerationManifest manifest = GenerationManifest.load(manifestFile, "instance", "first");
+        String first = manifest.fingerprint(new TestEntity("first", null));
+        manifest.record(first, new TestEntity("first", null));
+        manifest.save(true);
+
+        // A complete run of other specs keeps the entities of the first ones
+        manifest = GenerationManifest.load(manifestFile, "instance", "second");
+        String second = manifest.fingerprint(new TestEntity("second", null));
+        Assert.assertFalse(manifest.isUnchanged(first));
+        manifest.record(second, new TestEntity("second", null));
+        manifest.save(true);
+
+        Assert.assertTrue(GenerationManifest.load(manifestFile, "instance", "first")
+                .isUnchanged(first));
+        Assert.assertTrue(GenerationManifest.load(manifestFile, "instance", "second")
+                .isUnchanged(second));
+    }
+
+    @Test
+    public void testPartialSave() throws IOException {
+        File manifestFile = new File(Files.createTempDirectory("manifest-test").toFile(),
+                "manifest.json");
+        manifestFile.deleteOnExit();
+
+        GenerationManifest manifest = GenerationManifest.load(manifestFile, "instance");
+        String kept = manifest.fingerprint(new TestEntity("kept", null));
+        String changed = manifest.fingerprint(new TestEntity("changed", null));
+        String failed = manifest.fingerprint(new TestEntity("failed", null));
+        manifest.record(kept, new TestEntity("kept", null));
+        manifest.record(changed, new TestEntity("changed", null));
+        manifest.record(failed, new TestEntity("failed", null));
+        manifest.save(true);
+
+        // A watch run regenerating some of the entities only
+        manifest = GenerationManifest.load(manifestFile, "instance");
+        String changedAgain = "changed-again";
+        manifest.record(changedAgain, new TestEntity("changed", null));
+        manifest.recordFailure(new TestEntity("failed", null));
+        manifest.save(false);
+
+        manifest = GenerationManifest.load(manifestFile, "instance");
+        Assert.assertTrue(manifest.isUnchanged(kept));
+        Assert.assertTrue(manifest.isUnchanged(changedAgain));
+        Assert.assertFalse(manifest.isUnchanged(changed));
+        Assert.assertFalse(manifest.isUnchanged(failed));
+
+        // A complete run drops the entities it didn't see
+        manifest.save(true);
+        manifest = GenerationManifest.load(manifestFile, "instance");
+        Assert.assertTrue(manifest.isUnchanged(kept));
+        Assert.assertFalse(manifest.isUnchanged(failed));
+    }
+
+    private static class TestEntity implements GenerationEntity {
+        private final String name;
+        private final String inputFile;
+
+        private TestEntity(String name, String inputFile) {
+            this.name = name;
+            this.inputFile = inputFile;
+        }
+
+        @Override
+        public void generate() {
+        }
+
+        @Override
+        public List<String> inputFiles() {
+            return inputFile == null ? List.of() : List.of(inputFile);
+        }
+
+        @Override
+        public List<EntityReference> providedReferences() {
+            return List.of(EntityReference.of(EntityReference.Type.VARIABLE, name));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vmware.devops.GenerationPlan.Entry;
+import com.vmware.devops.GenerationPlan.Kind;
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.codestream.stubs.Variable;
+import com.vmware.devops.client.codestream.stubs.Variable.VariableType;
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+public class GenerationPlanTest {
+
+    @Before
+    public void setUp() {
+        GenerationContext.getInstance().getEndpointConfiguration().setClient(Client.offline());
+        IdCache.setOffline(true);
+    }
+
+    @After
+    public void tearDown() {
+        IdCache.setOffline(false);
+        GenerationContext.reset();
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        IdCache.PROJECT_ID_CACHE.put("known-project", "known-id");
+        GenerationPlan plan = new GenerationPlan();
+        plan.setInstance("instance");
+
+        plan.plan(1, new TestEntity("known-project"));
+        plan.plan(2, new TestEntity("new-project"));
+
+        File planFile = new File(Files.createTempDirectory("plan-test").toFile(), "plan.json");
+        planFile.deleteOnExit();
+        plan.save(planFile);
+        plan = GenerationPlan.load(planFile);
+
+        Assert.assertEquals("instance", plan.getInstance());
+        Assert.assertEquals(2, plan.getEntries().size());
+        Entry entry = plan.getEntries().get(1);
+        Assert.assertEquals(2, entry.getLayer());
+        Assert.assertEquals(List.of(EntityReference.of(EntityReference.Type.VARIABLE, "v")),
+                entry.providedReferences());
+        Assert.assertEquals(1, entry.getOperations().size());
+        Assert.assertEquals(Kind.VARIABLE, entry.getOperations().get(0).getKind());
+        Assert.assertEquals("known-id", plan.getEntries().get(0).getOperations().get(0)
+                .getPayload().get("project").textValue());
+        Assert.assertEquals("{{id:ProjectIdCache:new-project}}",
+                entry.getOperations().get(0).getPayload().get("project").textValue());
+    }
+
+    @Test
+    public void testRedactSecrets() throws Exception {
+        GenerationPlan plan = new GenerationPlan();
+        plan.setInstance("instance");
+        plan.plan(1, new TestEntity("known-project", VariableType.SECRET));
+
+        File planFile = new File(Files.createTempDirectory("plan-test").toFile(), "plan.json");
+        planFile.deleteOnExit();
+        GenerationPlan.getSecretsFile(planFile).deleteOnExit();
+        plan.save(planFile);
+
+        Assert.assertFalse(FileUtils.readFileToString(planFile, StandardCharsets.UTF_8)
+                .contains("secret-value"));
+        Assert.assertTrue(Utils.isOwnerOnly(GenerationPlan.getSecretsFile(planFile)));
+        Entry entry = GenerationPlan.load(planFile).getEntries().get(0);
+        Assert.assertEquals("{{secret:TestEntity:v/0/value}}",
+                entry.getOperations().get(0).getPayload().get("value").textValue());
+        Assert.assertEquals("secret-value", entry.getSecrets().get("TestEntity:v/0/value"));
+
+        Files.delete(GenerationPlan.getSecretsFile(planFile).toPath());
+        Entry withoutSecrets = GenerationPlan.load(planFile).getEntries().get(0);
+        Assert.assertThrows(IllegalStateException.class, withoutSecrets::generate);
+    }
+
+    @Test
+    public void testResolvePlaceholders() throws Exception {
+        IdCache.PROJECT_ID_CACHE.put("created-project", "created-id");
+
+        Assert.assertEquals("/projects/created-id", IdCache.resolvePlaceholders(
+                "/projects/{{id:ProjectIdCache:created-project}}"));
+    }
+
+    @Test
+    public void testInventorySnapshot() throws IOException, InterruptedException,
+            URISyntaxException {
+        File snapshotFile = new File(Files.createTempDirectory("plan-test").toFile(),
+                "inventory.json");
+        snapshotFile.deleteOnExit();
+        IdCache.PROJECT_ID_CACHE.put("first-project", "first-id");
+        IdCache.saveSnapshot(snapshotFile, "instance");
+
+        // A later run only knows the ids it looked up
+        IdCache.PROJECT_ID_CACHE.getNameToId().clear();
+        IdCache.PROJECT_ID_CACHE.put("second-project", "second-id");
+        IdCache.saveSnapshot(snapshotFile, "instance");
+
+        IdCache.PROJECT_ID_CACHE.getNameToId().clear();
+        IdCache.loadSnapshot(snapshotFile, "instance");
+        Assert.assertEquals("first-id", IdCache.PROJECT_ID_CACHE.getId("first-project"));
+        Assert.assertEquals("second-id", IdCache.PROJECT_ID_CACHE.getId("second-project"));
+    }
+
+    @Test
+    public void testReadsFailOffline() {
+        Assert.assertThrows(IOException.class, () -> GenerationContext.getInstance()
+                .getEndpointConfiguration().getClient().getCodestream().findVariableByName("v"));
+    }
+
+    private static class TestEntity implements GenerationEntity {
+        private final String project;
+        private final VariableType type;
+
+        private TestEntity(String project) {
+            this(project, VariableType.REGULAR);
+        }
+
+        private TestEntity(String project, VariableType type) {
+            this.project = project;
+            this.type = type;
+        }
+
+        @Override
+        public void generate() throws Exception {
+            GenerationContext.getInstance().getEndpointConfiguration().getClient().getCodestream()
+                    .createOrUpdateVariable(Variable.builder()
+                            .name("v")
+                            .project(IdCache.PROJECT_ID_CACHE.getId(project))
+                            .type(type)
+                            .value("secret-value")
+                            .build());
+        }
+
+        @Override
+        public List<EntityReference> providedReferences() {
+            return List.of(EntityReference.of(EntityReference.Type.VARIABLE, "v"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceCacheTest {
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("resources-test").toFile();
+        root.deleteOnExit();
+    }
+
+    @Test
+    public void testReadText() throws IOException {
+        ResourceCache cache = new ResourceCache();
+        File first = write("first.yaml", "name: first", 10000);
+        File copy = write("copy.yaml", "name: first", 10000);
+
+        String text = cache.readText(first.getPath());
+        Assert.assertEquals("name: first", text);
+        Assert.assertSame(text, cache.readText(first.getPath()));
+        Assert.assertSame(text, cache.readText(copy.getPath()));
+
+        // Read again once changed
+        write("first.yaml", "name: changed", 5000);
+        Assert.assertEquals("name: changed", cache.readText(first.getPath()));
+        Assert.assertEquals(2, cache.size());
+
+        // Content no path has anymore is dropped
+        write("copy.yaml", "name: other", 5000);
+        Assert.assertEquals("name: other", cache.readText(copy.getPath()));
+        Assert.assertEquals(2, cache.size());
+
+        // Recently modified files may change again unnoticed, so they are always read
+        write("first.yaml", "name: recent", 0);
+        Assert.assertEquals("name: recent", cache.readText(first.getPath()));
+        Files.writeString(first.toPath(), "name: latest");
+        Assert.assertEquals("name: latest", cache.readText(first.getPath()));
+    }
+
+    @Test
+    public void testReadProperties() throws IOException {
+        ResourceCache cache = new ResourceCache();
+        File file = write("configuration.properties", "key=value", 10000);
+
+        Properties properties = cache.readProperties(file.getPath());
+        Assert.assertEquals("value", properties.getProperty("key"));
+        properties.setProperty("key", "changed");
+        Assert.assertEquals("value", cache.readProperties(file.getPath()).getProperty("key"));
+    }
+
+    @Test
+    public void testReadLargeFile() throws IOException {
+        ResourceCache cache = new ResourceCache();
+        String content = "a".repeat(4 * 1024 * 1024);
+        File file = write("large.txt", content, 10000);
+
+        Assert.assertEquals(content, cache.readText(file.getPath()));
+        Assert.assertEquals(content.length(), cache.readBytes(file.getPath()).length);
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testMissing() throws IOException {
+        new ResourceCache().readText(new File(root, "missing.txt").getPath());
+    }
+
+    private File write(String name, String content, long ageMillis) throws IOException {
+        File file = new File(root, name);
+        Files.writeString(file.toPath(), content);
+        Files.setLastModifiedTime(file.toPath(),
+                FileTime.fromMillis(System.currentTimeMillis() - ageMillis));
+        return file;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vmware.devops.model.EntityReference;
+import com.vmware.devops.model.GenerationEntity;
+
+public class RunReportTest {
+
+    @Test
+    public void testReport() throws Exception {
+        File reportFile = new File(Files.createTempDirectory("report-test").toFile(),
+                "report.json");
+        reportFile.deleteOnExit();
+        TestEntity entity = new TestEntity();
+
+        RunReport report = RunReport.start();
+        RunReport.recordHttpCall("POST", "/csp/gateway/am/api/login", 1000000, false);
+        RunReport.Row row = RunReport.startSpec(new File("010-spec.groovy"), 10);
+        RunReport.recordCacheLookup(true);
+        RunReport.finish(row, "evaluated");
+
+        RunReport.addLayer(10, List.of(entity));
+        row = RunReport.startEntity(entity);
+        RunReport.recordHttpCall("GET",
+                "/codestream/api/variables/3f1b2c4d-aaaa-bbbb-cccc-0123456789ab", 2000000,
+                false);
+        RunReport.recordHttpCall("GET", "/codestream/api/variables/1", 2000000, true);
+        RunReport.recordCacheLookup(false);
+        RunReport.finish(row, "generated");
+        report.save(reportFile);
+
+        // Not recorded once saved
+        Assert.assertNull(RunReport.startSpec(new File("020-spec.groovy"), 20));
+
+        JsonNode json = SerializationUtils.getJsonMapper()
+                .readTree(Files.readString(reportFile.toPath(), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, json.at("/run/httpCalls/POST ~1csp~1gateway~1am~1api~1login/count")
+                .asInt());
+        Assert.assertEquals("010-spec.groovy", json.at("/specs/0/name").asText());
+        Assert.assertEquals(1, json.at("/specs/0/cacheHits").asInt());
+
+        JsonNode calls = json.at("/entities/0/httpCalls/GET ~1codestream~1api~1variables~1{id}");
+        Assert.assertEquals(2, calls.get("count").asInt());
+        Assert.assertEquals(4, calls.get("totalMillis").asInt());
+        Assert.assertEquals(1, calls.get("failures").asInt());
+        Assert.assertEquals("TestEntity:v", json.at("/entities/0/name").asText());
+        Assert.assertEquals("generated", json.at("/entities/0/status").asText());
+
+        Assert.assertEquals(1, json.at("/layers/10/specs").asInt());
+        Assert.assertEquals(1, json.at("/layers/10/entities").asInt());
+        Assert.assertEquals(2, json.at("/layers/10/httpCalls").asInt());
+        Assert.assertEquals(1, json.at("/layers/10/cacheHits").asInt());
+        Assert.assertEquals(2, json.at("/types/TestEntity/httpCalls").asInt());
+        Assert.assertEquals(1, json.at("/types/TestEntity/cacheMisses").asInt());
+        Assert.assertTrue(json.at("/start").isMissingNode());
+    }
+
+    private static class TestEntity implements GenerationEntity {
+        @Override
+        public void generate() {
+        }
+
+        @Override
+        public List<EntityReference> providedReferences() {
+            return List.of(EntityReference.of(EntityReference.Type.VARIABLE, "v"));
+        }
+
+        @Override
+        public List<EntityReference> requiredReferences() {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vmware.devops.model.codestream.Pipeline;
+import com.vmware.devops.model.codestream.PipelineTask;
+import com.vmware.devops.model.codestream.Variable;
+
+public class SpecOutputCacheTest {
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("spec-output-test").toFile();
+        root.deleteOnExit();
+    }
+
+    @After
+    public void tearDown() {
+        GenerationContext.reset();
+    }
+
+    @Test
+    public void testProcess() throws IOException {
+        File cacheFile = new File(root, "spec-output.json");
+        File valueFile = new File(root, "value.txt");
+        Files.writeString(valueFile.toPath(), "first");
+        String spec = "import com.vmware.devops.Utils\n"
+                + "import com.vmware.devops.model.codestream.*\n"
+                + "return [\n"
+                + "    Variable.builder().name('variable')\n"
+                + "            .value(Utils.readFile('" + valueFile.getPath() + "')).build(),\n"
+                + "    Pipeline.builder().name('pipeline').stages([\n"
+                + "        Stage.builder().name('stage').tasks([\n"
+                + "            PipelineTask.builder().name('task').pipeline('other')\n"
+                + "                    .inputs([new Input('input', 'value')]).build()\n"
+                + "        ]).build()\n"
+                + "    ]).build()\n"
+                + "]";
+
+        List<?> evaluated = (List<?>) process(cacheFile, spec, 0);
+        List<?> cached = (List<?>) process(cacheFile, spec, 1);
+        Assert.assertEquals(evaluated, cached);
+        Assert.assertEquals("first", ((Variable) cached.get(0)).getValue());
+        Assert.assertEquals("other", ((PipelineTask) ((Pipeline) cached.get(1)).getStages().get(0)
+                .getTasks().get(0)).getPipeline());
+
+        // Evaluated again once a file read by the spec changes
+        Files.writeString(valueFile.toPath(), "second");
+        cached = (List<?>) process(cacheFile, spec, 0);
+        Assert.assertEquals("second", ((Variable) cached.get(0)).getValue());
+        process(cacheFile, spec, 1);
+
+        // Or the context configuration does
+        GenerationContext.getInstance().getGlobalConfiguration().setDefaultProject("project");
+        process(cacheFile, spec, 0);
+    }
+
+    @Test
+    public void testSpecChangingContext() {
+        File cacheFile = new File(root, "spec-output.json");
+        String spec = "import com.vmware.devops.model.codestream.*\n"
+                + "context.globalConfiguration.defaultCloudProxy += '-proxy'\n"
+                + "return Variable.builder().name('variable').value('value').build()";
+
+        GenerationContext.getInstance().getGlobalConfiguration().setDefaultCloudProxy("cloud");
+        process(cacheFile, spec, 0);
+        process(cacheFile, spec, 0);
+        Assert.assertEquals("cloud-proxy-proxy",
+                GenerationContext.getInstance().getGlobalConfiguration().getDefaultCloudProxy());
+    }
+
+    private static Object process(File cacheFile, String spec, int hits) {
+        SpecOutputCache cache = SpecOutputCache.load(cacheFile);
+        Object result = cache.process(spec, new SpecProcessor());
+        cache.save();
+        Assert.assertEquals(hits, cache.getHits());
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.codehaus.groovy.control.MultipleCompilationErrorsException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpecProcessorTest {
+
+    @Test
+    public void testCompiledSpecCache() throws IOException {
+        File cacheDir = Files.createTempDirectory("scripts-test").toFile();
+        cacheDir.deleteOnExit();
+        String spec = "class Holder { String value }\n"
+                + "return new Holder(value: 'a' + 'b').value";
+
+        Assert.assertEquals("ab", new SpecProcessor(cacheDir).process(spec));
+        File[] cached = cacheDir.listFiles();
+        Assert.assertEquals(1, cached.length);
+
+        // Loaded from the cache, without compiling again
+        long lastModified = cached[0].lastModified();
+        Assert.assertEquals("ab", new SpecProcessor(cacheDir).process(spec));
+        Assert.assertEquals(lastModified, cached[0].lastModified());
+        Assert.assertEquals(1, cacheDir.listFiles().length);
+
+        Assert.assertEquals("ba", new SpecProcessor(cacheDir).process("return 'b' + 'a'"));
+        Assert.assertEquals(2, cacheDir.listFiles().length);
+
+        // Specs declaring a package, like the ones in the test resources
+        String packaged = "package tests\nreturn { 'packaged' }()";
+        Assert.assertEquals("packaged", new SpecProcessor(cacheDir).process(packaged));
+        Assert.assertEquals("packaged", new SpecProcessor(cacheDir).process(packaged));
+    }
+
+    @Test
+    public void testPruneCache() throws IOException {
+        File cacheDir = Files.createTempDirectory("scripts-test").toFile();
+        cacheDir.deleteOnExit();
+        String kept = "return 'kept'";
+        String removed = "return 'removed'";
+        new SpecProcessor(cacheDir).compileAll(List.of(kept, removed));
+        Assert.assertEquals(2, cacheDir.listFiles().length);
+
+        // Specs unused by a run are kept for the other runs sharing the cache
+        SpecProcessor specProcessor = new SpecProcessor(cacheDir);
+        specProcessor.compileAll(List.of(kept));
+        specProcessor.pruneCache();
+        Assert.assertEquals(2, cacheDir.listFiles().length);
+
+        // Until no run used them for the retention period
+        long expired = System.currentTimeMillis() - SpecProcessor.RETENTION_MILLIS - 1000;
+        for (File file : cacheDir.listFiles()) {
+            file.setLastModified(expired);
+        }
+        specProcessor.pruneCache();
+        Assert.assertEquals(1, cacheDir.listFiles().length);
+        long lastModified = cacheDir.listFiles()[0].lastModified();
+        Assert.assertTrue(lastModified > expired);
+
+        // The remaining classes are the ones of the kept spec
+        new SpecProcessor(cacheDir).compileAll(List.of(kept));
+        Assert.assertEquals(lastModified, cacheDir.listFiles()[0].lastModified());
+        Assert.assertEquals(1, cacheDir.listFiles().length);
+    }
+
+    @Test
+    public void testSharedClassLoader() {
+        SpecProcessor specProcessor = new SpecProcessor();
+        String first = "class Holder { String value }\nreturn new Holder(value: 'first').value";
+        String second = "class Holder { String other }\nreturn new Holder(other: 'second').other";
+
+        Assert.assertSame(specProcessor.compile(first), specProcessor.compile(first));
+        Assert.assertSame(specProcessor.compile(first).getClassLoader(),
+                specProcessor.compile("return 1").getClassLoader());
+
+        // Released classes are defined again by a new loader
+        Class<?> released = specProcessor.compile(first);
+        specProcessor.releaseClasses();
+        Assert.assertNotSame(released, specProcessor.compile(first));
+        Assert.assertNotSame(released.getClassLoader(),
+                specProcessor.compile(first).getClassLoader());
+
+        // Classes by the same name in different specs don't clash
+        Assert.assertEquals("first", specProcessor.process(first));
+        Assert.assertEquals("second", specProcessor.process(second));
+        Assert.assertNotSame(specProcessor.compile(first).getClassLoader(),
+                specProcessor.compile(second).getClassLoader());
+    }
+
+    @Test
+    public void testCompileStatic() {
+        String spec = "return context.getEndpointConfiguration() != null ? 'a'.toUpperCase() : ''";
+        Assert.assertEquals("A", new SpecProcessor(null, true).process(spec));
+
+        String typeError = "String value = 'a'\nreturn value.missing()";
+        try {
+            new SpecProcessor(null, true).process(typeError);
+            Assert.fail("Type error not reported");
+        } catch (MultipleCompilationErrorsException e) {
+            Assert.assertTrue(e.getMessage().contains("[Static type checking]"));
+        }
+
+        // Per spec through an annotated import
+        try {
+            new SpecProcessor().process("@CompileStatic\nimport groovy.transform.CompileStatic\n"
+                    + typeError);
+            Assert.fail("Type error not reported");
+        } catch (MultipleCompilationErrorsException e) {
+            Assert.assertTrue(e.getMessage().contains("[Static type checking]"));
+        }
+    }
+
+    @Test
+    public void testCompileAll() throws IOException {
+        File cacheDir = Files.createTempDirectory("scripts-test").toFile();
+        cacheDir.deleteOnExit();
+        String first = "class Holder { String value }\nreturn [1, 2].collect { it * 2 }";
+        String second = "return 'second'";
+
+        SpecProcessor specProcessor = new SpecProcessor(cacheDir);
+        String packaged = "package tests\nreturn 'packaged'";
+        specProcessor.compileAll(List.of(first, second, second, packaged));
+        Assert.assertEquals(3, cacheDir.listFiles().length);
+        Assert.assertEquals("packaged", specProcessor.process(packaged));
+        Assert.assertEquals(List.of(2, 4), specProcessor.process(first));
+        Assert.assertEquals("second", specProcessor.process(second));
+        Assert.assertEquals(3, cacheDir.listFiles().length);
+
+        // Compiled one by one when compiling together fails
+        String clashing = "class Holder { String other }\nreturn new Holder(other: 'b').other";
+        String broken = "return 'broken";
+        specProcessor = new SpecProcessor();
+        specProcessor.compileAll(List.of(first, clashing, broken));
+        Assert.assertEquals(List.of(2, 4), specProcessor.process(first));
+        Assert.assertEquals("b", specProcessor.process(clashing));
+        try {
+            specProcessor.compile(broken);
+            Assert.fail("Compile error not reported");
+        } catch (MultipleCompilationErrorsException e) {
+            // Expected
+        }
+    }
+}
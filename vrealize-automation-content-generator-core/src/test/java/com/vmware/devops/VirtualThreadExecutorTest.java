@@ -0,0 +1,42 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VirtualThreadExecutorTest {
+
+    @Test
+    public void testConcurrencyIsLimited() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(10);
+
+        try (VirtualThreadExecutor executor = new VirtualThreadExecutor(2)) {
+            for (int i = 0; i < 10; i++) {
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+
+        Assert.assertTrue(maxRunning.get() <= 2);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import picocli.CommandLine;
+
+import com.vmware.devops.cli.JobRunnerTest.TestJobRunner;
+
+public class BatchTest {
+
+    @Test
+    public void testRun() throws Exception {
+        File manifest = Files.createTempFile("batch", ".yaml").toFile();
+        manifest.deleteOnExit();
+        Files.writeString(manifest.toPath(), String.join("\n",
+                "jobs:",
+                "  - name: first",
+                "    args: [ '--path', 'failing' ]",
+                "  - name: second",
+                "    command: reverseGenerate",
+                "    args: [ '--path', 'specs' ]"), StandardCharsets.UTF_8);
+
+        TestJobRunner jobRunner = new TestJobRunner();
+        Assert.assertEquals(1, new CommandLine(new Batch(jobRunner))
+                .execute("--manifest", manifest.getPath()));
+        Assert.assertEquals(List.of("first", "second"), jobRunner.jobs);
+
+        jobRunner = new TestJobRunner();
+        Assert.assertEquals(1, new CommandLine(new Batch(jobRunner))
+                .execute("--manifest", manifest.getPath(), "--fail-fast"));
+        Assert.assertEquals(List.of("first"), jobRunner.jobs);
+    }
+}
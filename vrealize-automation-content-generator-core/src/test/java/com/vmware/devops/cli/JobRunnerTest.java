@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import picocli.CommandLine.Option;
+
+public class JobRunnerTest {
+
+    @Test
+    public void testRun() throws Exception {
+        Job job = new Job();
+        job.setArgs(List.of("--path", "failing"));
+
+        StringWriter output = new StringWriter();
+        int status = new TestJobRunner().run(job, new PrintWriter(output, true));
+
+        Assert.assertEquals(3, status);
+        Assert.assertTrue(output.toString(), output.toString().contains("Running job"));
+    }
+
+    @Test
+    public void testArguments() throws Exception {
+        File token = Files.createTempFile("token", ".txt").toFile();
+        token.deleteOnExit();
+        Files.writeString(token.toPath(), "secret\n", StandardCharsets.UTF_8);
+        Job job = new Job();
+        job.setInstance("https://instance");
+        job.setCredentials("file:" + token.getPath());
+        job.setArgs(List.of("--path", "specs"));
+
+        Assert.assertEquals("secret", job.resolveRefreshToken());
+        Assert.assertArrayEquals(new String[] { "--path", "specs", "--instance",
+                "https://instance", "--refresh-token", "secret" },
+                job.toArguments(job.resolveRefreshToken()));
+
+        job.setCredentials("secret");
+        Assert.assertThrows(IllegalArgumentException.class, job::resolveRefreshToken);
+    }
+
+    static class TestJobRunner extends JobRunner {
+        final List<String> jobs = new ArrayList<>();
+
+        @Override
+        public int run(Job job, PrintWriter output) throws IOException, InterruptedException,
+                URISyntaxException {
+            jobs.add(job.getName());
+            return super.run(job, output);
+        }
+
+        @Override
+        protected Callable<Integer> newCommand(String name) {
+            return new TestCommand();
+        }
+    }
+
+    @Slf4j
+    private static class TestCommand implements Callable<Integer> {
+        @Option(names = { "--path" })
+        private String path;
+
+        @Override
+        public Integer call() {
+            log.info("Running job");
+            return "failing".equals(path) ? 3 : 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import picocli.CommandLine;
+
+public class ServerTest {
+
+    @Test
+    public void testReadToken() throws Exception {
+        File tokenFile = new File(Files.createTempDirectory("server-test").toFile(), "token");
+        tokenFile.deleteOnExit();
+
+        byte[] token = Server.readToken(tokenFile);
+        Assert.assertTrue(token.length > 0);
+        Assert.assertArrayEquals(token, Server.readToken(tokenFile));
+
+        Files.setPosixFilePermissions(tokenFile.toPath(),
+                PosixFilePermissions.fromString("rw-r--r--"));
+        Assert.assertThrows(IllegalStateException.class, () -> Server.readToken(tokenFile));
+    }
+
+    @Test
+    public void testAuthorize() {
+        Server server = new Server();
+        new CommandLine(server).parseArgs("--token-file", "token",
+                "--allow-credentials", "env:ALLOWED",
+                "--allow-login-instance", "https://login");
+
+        Job job = new Job();
+        job.setCredentials("env:ALLOWED");
+        job.setLoginInstance("https://login");
+        job.setArgs(List.of("--path", "specs"));
+        server.authorize(job);
+
+        job.setCredentials("file:/other/token");
+        Assert.assertThrows(IllegalArgumentException.class, () -> server.authorize(job));
+
+        job.setCredentials("env:ALLOWED");
+        job.setLoginInstance("https://other");
+        Assert.assertThrows(IllegalArgumentException.class, () -> server.authorize(job));
+
+        job.setLoginInstance(null);
+        job.setArgs(List.of("--path", "specs", "-l", "https://other"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> server.authorize(job));
+    }
+}
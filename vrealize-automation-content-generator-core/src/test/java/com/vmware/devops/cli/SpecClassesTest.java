@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vmware.devops.SpecProcessor;
+
+public class SpecClassesTest {
+
+    @Test
+    public void testFindAndRun() throws IOException {
+        File root = Files.createTempDirectory("spec-classes-test").toFile();
+        root.deleteOnExit();
+        File sources = new File(root, "sources");
+        File classes = new File(root, "classes");
+        write(new File(sources, "010-first.groovy"),
+                "class Holder { String value }\nreturn new Holder(value: 'first').value");
+        write(new File(sources, "codestream/020-second.groovy"), "return { 'second' }()");
+        write(new File(sources, "pipeline.groovy"), "return 'unordered'");
+
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setTargetDirectory(classes);
+        CompilationUnit unit = new CompilationUnit(configuration);
+        unit.addSources(new File[] {
+                new File(sources, "010-first.groovy"),
+                new File(sources, "codestream/020-second.groovy"),
+                new File(sources, "pipeline.groovy")
+        });
+        unit.compile();
+
+        SpecClasses specClasses = new SpecClasses(classes);
+        Map<Integer, List<File>> specs = specClasses.find();
+        Assert.assertEquals(Map.of(
+                10, List.of(new File(classes, "010-first.class")),
+                20, List.of(new File(classes, "020-second.class")),
+                SpecFinder.DEFAULT_ORDER, List.of(new File(classes, "pipeline.class"))), specs);
+
+        SpecProcessor specProcessor = new SpecProcessor();
+        Assert.assertEquals("first", specProcessor.run(specClasses.load(specs.get(10).get(0))));
+        Assert.assertEquals("second", specProcessor.run(specClasses.load(specs.get(20).get(0))));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), content);
+    }
+}
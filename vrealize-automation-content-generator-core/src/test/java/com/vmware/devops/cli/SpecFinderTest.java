@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpecFinderTest {
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("specs-test").toFile();
+        root.deleteOnExit();
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        File first = create("010-project.groovy");
+        File nested = create("nested/100-pipeline.groovy");
+        File unordered = create("nested/deeper/pipeline.groovy");
+        create("nested/notes.txt");
+        create("target/010-project.groovy");
+
+        Map<Integer, List<File>> specs = new SpecFinder(root, ".*\\.groovy", List.of("target"))
+                .find(ForkJoinPool.commonPool());
+
+        Assert.assertEquals(Map.of(10, List.of(first), 100, List.of(nested),
+                SpecFinder.DEFAULT_ORDER, List.of(unordered)), specs);
+    }
+
+    @Test
+    public void testDanglingLink() throws IOException {
+        File spec = create("010-project.groovy");
+        Files.createSymbolicLink(new File(root, "020-missing.groovy").toPath(),
+                new File(root, "missing.groovy").toPath());
+
+        Assert.assertEquals(Map.of(10, List.of(spec)),
+                new SpecFinder(root, ".*\\.groovy", List.of()).find(ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        File cacheFile = new File(root, "specs.json");
+        File first = create("specs/010-project.groovy");
+        File directory = first.getParentFile();
+        FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis() - 10000);
+        Files.setLastModifiedTime(directory.toPath(), lastModified);
+
+        SpecFinder specFinder = new SpecFinder(directory, ".*\\.groovy", List.of());
+        specFinder.find(ForkJoinPool.commonPool());
+        specFinder.saveCache(cacheFile);
+
+        // The listing is reused while the directory looks unchanged
+        File second = create("specs/020-project.groovy");
+        Files.setLastModifiedTime(directory.toPath(), lastModified);
+        specFinder = new SpecFinder(directory, ".*\\.groovy", List.of());
+        specFinder.loadCache(cacheFile);
+        Assert.assertEquals(Map.of(10, List.of(first)),
+                specFinder.find(ForkJoinPool.commonPool()));
+
+        Files.setLastModifiedTime(directory.toPath(), FileTime.fromMillis(
+                System.currentTimeMillis() - 5000));
+        specFinder = new SpecFinder(directory, ".*\\.groovy", List.of());
+        specFinder.loadCache(cacheFile);
+        Assert.assertEquals(Map.of(10, List.of(first), 20, List.of(second)),
+                specFinder.find(ForkJoinPool.commonPool()));
+    }
+
+    private File create(String path) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), "return []");
+        return file;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpecWatcherTest {
+
+    @Test
+    public void testChangedSpecs() throws IOException, InterruptedException {
+        File root = Files.createTempDirectory("watch-test").toFile();
+        root.deleteOnExit();
+        File spec = new File(root, "100-spec.groovy");
+        Files.writeString(spec.toPath(), "return []", StandardCharsets.UTF_8);
+
+        try (SpecWatcher watcher = new SpecWatcher(root, f -> f.getName().endsWith(".groovy"))) {
+            Files.writeString(spec.toPath(), "return [] // changed", StandardCharsets.UTF_8);
+            Files.writeString(new File(root, "notes.txt").toPath(), "ignored",
+                    StandardCharsets.UTF_8);
+            File directory = new File(root, "nested");
+            Files.createDirectory(directory.toPath());
+            File nested = new File(directory, "spec.groovy");
+            Files.writeString(nested.toPath(), "return []", StandardCharsets.UTF_8);
+
+            Set<File> changed = watcher.awaitChanges();
+            Assert.assertTrue(changed.contains(spec));
+            Assert.assertTrue(changed.stream().allMatch(f -> f.getName().endsWith(".groovy")));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021-2021 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ */
+
+package com.vmware.devops.client;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ImageName;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ImageName.ImageMapping;
+import com.vmware.devops.client.codestream.stubs.Variable;
+import com.vmware.devops.client.codestream.stubs.Variable.VariableType;
+
+public class NoOpDetectorTest {
+
+    @Test
+    public void testEquivalentDocuments() {
+        Variable desired = variable().build();
+        Variable existing = variable().build();
+        long before = NoOpDetector.getNoOps().getOrDefault("test-variable", 0L);
+
+        Assert.assertTrue(NoOpDetector.isNoOp("test-variable", desired, existing));
+        Assert.assertEquals(before + 1,
+                (long) NoOpDetector.getNoOps().get("test-variable"));
+    }
+
+    @Test
+    public void testChangedDocuments() {
+        Variable desired = variable().build();
+        Variable existing = variable().description("Changed on the server").build();
+
+        Assert.assertFalse(NoOpDetector.isNoOp("test-variable", desired, existing));
+        Assert.assertFalse(NoOpDetector.isNoOp("test-variable", desired, null));
+    }
+
+    @Test
+    public void testIgnoredFields() {
+        Map<String, ImageMapping> mapping = Map.of("account", new ImageMapping("image"));
+        ImageName desired = new ImageName("name", mapping, mapping);
+        ImageName existing = new ImageName("name", mapping, null);
+
+        Assert.assertFalse(NoOpDetector.isNoOp("test-image-name", desired, existing));
+        Assert.assertTrue(NoOpDetector.isNoOp("test-image-name", desired, existing,
+                "oldImageMapping"));
+    }
+
+    private static Variable.VariableBuilder variable() {
+        return Variable.builder().project("project").id("id").name("name")
+                .type(VariableType.REGULAR).value("value");
+    }
+}
@@ -5,6 +5,10 @@
 
 package com.vmware.devops.cloudassembly.design;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
 import java.io.IOException;
 import java.net.URISyntaxException;
 
@@ -18,6 +22,9 @@ import com.vmware.devops.IdCache;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.SpecProcessor;
 import com.vmware.devops.Utils;
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.cloudassembly.CloudAssemblyClient;
+import com.vmware.devops.client.cloudassembly.design.DesignClient;
 import com.vmware.devops.client.cloudassembly.design.stubs.Blueprint;
 import com.vmware.devops.model.cloudassembly.design.CloudTemplate;
 import com.vmware.devops.model.cloudassembly.extensibility.Action;
@@ -45,6 +52,28 @@ public class DesignGenerationTest extends GenerationTestBase {
         Assert.assertEquals(expectedOutput, output);
     }
 
+    @Test
+    public void cloudTemplateGenerationTest() throws Exception {
+        DesignClient designClient = mock(DesignClient.class);
+        doReturn(Blueprint.builder()
+                .name("vrealize-automation-content-generator-test")
+                .id("generatedId")
+                .build()).when(designClient).createOrUpdateBlueprint(any());
+        CloudAssemblyClient cloudAssemblyClient = mock(CloudAssemblyClient.class);
+        doReturn(designClient).when(cloudAssemblyClient).getDesign();
+        Client client = mock(Client.class);
+        doReturn(cloudAssemblyClient).when(client).getCloudAssembly();
+        GenerationContext.getInstance().getEndpointConfiguration().setClient(client);
+
+        SpecProcessor specProcessor = new SpecProcessor();
+        CloudTemplate t = (CloudTemplate) specProcessor
+                .process(Utils.readFile("tests/cloudassembly/design/cloudTemplateTest.groovy"));
+        t.generate();
+
+        Assert.assertEquals("generatedId", IdCache.BLUEPRINT_ID_CACHE
+                .getId("vrealize-automation-content-generator-test"));
+    }
+
     @Test
     public void cloudTemplateWithContentFileTest() throws IOException, URISyntaxException, InterruptedException {
         SpecProcessor specProcessor = new SpecProcessor();
@@ -5,6 +5,10 @@
 
 package com.vmware.devops.cloudassembly.extensibility;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -18,11 +22,15 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.vmware.devops.GenerationContext;
 import com.vmware.devops.GenerationTestBase;
 import com.vmware.devops.IdCache;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.SpecProcessor;
 import com.vmware.devops.Utils;
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.cloudassembly.CloudAssemblyClient;
+import com.vmware.devops.client.cloudassembly.extensibility.ExtensibilityClient;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.EventType;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.ResourceAction;
 import com.vmware.devops.client.cloudassembly.extensibility.stubs.Subscription.RunnableType;
@@ -57,6 +65,28 @@ public class ExtensibilityGenerationTest extends GenerationTestBase {
         Assert.assertEquals(expectedOutput, output);
     }
 
+    @Test
+    public void actionGenerationTest() throws Exception {
+        ExtensibilityClient extensibilityClient = mock(ExtensibilityClient.class);
+        doReturn(com.vmware.devops.client.cloudassembly.extensibility.stubs.Action.builder()
+                .name("test-action")
+                .id("generatedId")
+                .build()).when(extensibilityClient).createOrUpdateAction(any());
+        CloudAssemblyClient cloudAssemblyClient = mock(CloudAssemblyClient.class);
+        doReturn(extensibilityClient).when(cloudAssemblyClient).getExtensibility();
+        Client client = mock(Client.class);
+        doReturn(cloudAssemblyClient).when(client).getCloudAssembly();
+        GenerationContext.getInstance().getEndpointConfiguration().setClient(client);
+
+        SpecProcessor specProcessor = new SpecProcessor();
+        Action action = (Action) specProcessor
+                .process(Utils.readFile(
+                        "tests/cloudassembly/extensibility/pythonScriptActionTest.groovy"));
+        action.generate();
+
+        Assert.assertEquals("generatedId", IdCache.ACTION_ID_CACHE.getId("test-action"));
+    }
+
     @Test
     public void pythonPackageActionTest()
             throws IOException, URISyntaxException, InterruptedException {
@@ -7,7 +7,12 @@ package com.vmware.devops.cloudassembly.infrastructure;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.util.List;
@@ -16,12 +21,19 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.vmware.devops.GenerationContext;
 import com.vmware.devops.GenerationTestBase;
 import com.vmware.devops.IdCache;
 import com.vmware.devops.SerializationUtils;
 import com.vmware.devops.SpecProcessor;
 import com.vmware.devops.Utils;
+import com.vmware.devops.client.Client;
+import com.vmware.devops.client.cloudassembly.CloudAssemblyClient;
+import com.vmware.devops.client.cloudassembly.infrastructure.InfrastructureClient;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.CloudZone;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Endpoint;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.ProjectPrincipal;
+import com.vmware.devops.client.cloudassembly.infrastructure.stubs.Region;
 import com.vmware.devops.client.cloudassembly.infrastructure.stubs.RegionInfo;
 import com.vmware.devops.model.cloudassembly.infrastructure.AwsCloudAccount;
 import com.vmware.devops.model.cloudassembly.infrastructure.AzureCloudAccount;
@@ -225,4 +237,97 @@ public class InfrastructureGenerationTest extends GenerationTestBase {
                         "tests/cloudassembly/infrastructure/azureCloudAccountRegionsTestOutput.json");
         Assert.assertEquals(expectedOutput, output);
     }
+
+    @Test
+    public void projectGenerationTest() throws Exception {
+        InfrastructureClient infrastructureClient = mockInfrastructureClient();
+        doReturn(com.vmware.devops.client.cloudassembly.infrastructure.stubs.Project.builder()
+                .name("test")
+                .id("generatedId")
+                .build()).when(infrastructureClient).createOrUpdateProject(any());
+
+        SpecProcessor specProcessor = new SpecProcessor();
+        Project project = (Project) specProcessor
+                .process(Utils.readFile("tests/cloudassembly/infrastructure/projectTest.groovy"));
+        project.generate();
+
+        Assert.assertEquals("generatedId", IdCache.PROJECT_ID_CACHE.getId("test"));
+    }
+
+    @Test
+    public void cloudAccountGenerationTest() throws Exception {
+        InfrastructureClient infrastructureClient = mockInfrastructureClient();
+        doReturn(Endpoint.builder().name("first").build())
+                .doReturn(Endpoint.builder().name("second").build())
+                .when(infrastructureClient).createOrUpdateEndpoint(any());
+        doReturn(List.of(
+                region("first", "sc", "/regions/1"),
+                region("second", "sc", "/regions/2"),
+                region("other", "sc", "/regions/3")
+        )).when(infrastructureClient).getAllRegions();
+        doReturn(List.of(
+                CloudZone.builder().name("first / sc").documentSelfLink("/zones/1").build(),
+                CloudZone.builder().name("second / sc").documentSelfLink("/zones/2").build()
+        )).when(infrastructureClient).getAllCloudZones();
+
+        NimbusCloudAccount account = spyNimbusCloudAccount();
+        account.generate();
+        account.generate();
+
+        Assert.assertEquals("/regions/1", IdCache.REGION_LINK_CACHE.getId("first / sc"));
+        Assert.assertEquals("/regions/2", IdCache.REGION_LINK_CACHE.getId("second/sc"));
+        Assert.assertEquals("/zones/1", IdCache.CLOUD_ZONE_LINK_CACHE.getId("first / sc"));
+        Assert.assertEquals("/zones/2", IdCache.CLOUD_ZONE_LINK_CACHE.getId("second / sc"));
+
+        // Listed once for both cloud accounts
+        verify(infrastructureClient, times(1)).getAllRegions();
+        verify(infrastructureClient, times(1)).getAllCloudZones();
+        verify(infrastructureClient, never()).findRegionByEndpointAndRegionName(any(), any());
+        verify(infrastructureClient, never()).findCloudZoneByName(any());
+    }
+
+    @Test
+    public void cloudAccountListingFailureTest() throws Exception {
+        InfrastructureClient infrastructureClient = mockInfrastructureClient();
+        doReturn(Endpoint.builder().name("third").build())
+                .when(infrastructureClient).createOrUpdateEndpoint(any());
+        doThrow(new IllegalStateException("Failed to fetch all regions"))
+                .when(infrastructureClient).getAllRegions();
+        doReturn(region("third", "sc", "/regions/4"))
+                .when(infrastructureClient).findRegionByEndpointAndRegionName("third", "sc");
+
+        // The cloud account is generated, its region is looked up by name
+        spyNimbusCloudAccount().generate();
+        Assert.assertEquals("/regions/4", IdCache.REGION_LINK_CACHE.getId("third / sc"));
+    }
+
+    private NimbusCloudAccount spyNimbusCloudAccount() throws IOException {
+        SpecProcessor specProcessor = new SpecProcessor();
+        NimbusCloudAccount account = spy((NimbusCloudAccount) specProcessor
+                .process(Utils.readFile(
+                        "tests/cloudassembly/infrastructure/nimbusCloudAccountTest.groovy")));
+        doReturn(List.of(RegionInfo.builder()
+                .name("sc")
+                .regionId(NimbusRegion.SC.getId())
+                .build())).when(account).filterRegions(any());
+        return account;
+    }
+
+    private static Region region(String endpoint, String name, String link) {
+        return Region.builder()
+                .endpoint(Endpoint.builder().name(endpoint).build())
+                .regionName(name)
+                .documentSelfLink(link)
+                .build();
+    }
+
+    private static InfrastructureClient mockInfrastructureClient() {
+        InfrastructureClient infrastructureClient = mock(InfrastructureClient.class);
+        CloudAssemblyClient cloudAssemblyClient = mock(CloudAssemblyClient.class);
+        doReturn(infrastructureClient).when(cloudAssemblyClient).getInfrastructure();
+        Client client = mock(Client.class);
+        doReturn(cloudAssemblyClient).when(client).getCloudAssembly();
+        GenerationContext.getInstance().getEndpointConfiguration().setClient(client);
+        return infrastructureClient;
+    }
 }